@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.benchmark;
+
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+
+import com.simsilica.lemur.Panel;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jnightride.jgui.AppSize;
+import org.jnightride.jgui.RootPane;
+import org.jnightride.jgui.ScaleQuantizer;
+import org.jnightride.jgui.core.Dock;
+import org.jnightride.jgui.core.DockControl;
+import org.jnightride.jgui.core.DynamicLayout;
+import org.jnightride.jgui.core.GuiFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Pruebas de rendimiento del motor de diseño: reinicio completo, pasadas
+ * de {@code reshape}, cambios de intervalo de escala, actualizaciones de un
+ * solo componente y altas/bajas de componentes, sobre arboles planos,
+ * profundos y mixtos.
+ * <p>
+ * Junto al profiler {@code gc} reporta tambien la tasa de asignaciones.
+ * 
+ * @author wil
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LayoutBenchmark {
+    
+    @Param({"Flat", "Deep", "Mixed"})
+    public LayoutTrees.Shape shape;
+    
+    @Param({"false", "true"})
+    public boolean lockScaling;
+    
+    @Param({"false", "true"})
+    public boolean packed;
+    
+    /*
+        Estado de la prueba.
+    */
+    private RootPane root;
+    private DynamicLayout<?> layout;
+    private DockControl target;
+    private Panel churn;
+    
+    private final Vector3f pos   = new Vector3f();
+    private final Vector3f sizeA = new Vector3f(AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT, 0.0F);
+    private final Vector3f sizeB = new Vector3f(AppSize.MIN_WIDTH + 1, AppSize.MIN_HEIGHT + 1, 0.0F);
+    private boolean toggle;
+
+    @Setup
+    public void setup() {
+        root   = LayoutTrees.newRoot();
+        layout = (DynamicLayout<?>) root.getLayout();
+        layout.setPacked(packed);
+        
+        Node leaf = LayoutTrees.build(root, shape, lockScaling);
+        target = leaf.getControl(DockControl.class);
+        churn  = GuiFixtures.newPanel(32, 32);
+        root.addChild(churn, Dock.LeftTop, lockScaling);
+        
+        root.restart();
+    }
+    
+    /**
+     * Reinicio completo de todo el arbol.
+     * @param bh (non-JavaDoc)
+     */
+    @Benchmark
+    public void restart(Blackhole bh) {
+        root.restart();
+        bh.consume(target.getPosition());
+    }
+    
+    /**
+     * Pasada de {@code reshape} con un cambio de dimensiones del contenedor
+     * raiz, obliga a recalcular todos los hijos directos.
+     * @param bh (non-JavaDoc)
+     */
+    @Benchmark
+    public void reshape(Blackhole bh) {
+        toggle = !toggle;
+        layout.reshape(pos, toggle ? sizeA : sizeB);
+        bh.consume(target.getPosition());
+    }
+    
+    /**
+     * Mover un solo componente.
+     * @param bh (non-JavaDoc)
+     */
+    @Benchmark
+    public void setPosition(Blackhole bh) {
+        toggle = !toggle;
+        target.setPosition(toggle ? 4.0F : 8.0F, 2.0F);
+        bh.consume(target.getPosition());
+    }
+    
+    /**
+     * Alterna el contenedor raiz entre dos intervalos de escala (como al
+     * pasar de ventana a pantalla completa). Con los factores ajustados los
+     * componentes reutilizan el resultado de cada intervalo 
+     * ({@code LayoutCache}); sin ajustar, lo vuelven a calcular.
+     * 
+     * @param state arbol con o sin factores ajustados.
+     * @param bh (non-JavaDoc)
+     */
+    @Benchmark
+    public void bucketToggle(BucketState state, Blackhole bh) {
+        state.toggle = !state.toggle;
+        final Vector3f size = state.toggle ? state.large : state.small;
+        state.root.setPreferredSize(size);
+        state.layout.reshape(pos, size);
+        bh.consume(state.target.getPosition());
+    }
+    
+    /**
+     * Arbol plano para {@link #bucketToggle(BucketState, Blackhole)}; las
+     * dos dimensiones caen en los niveles {@code 1} y {@code 0.5}, con o
+     * sin ajustar los factores dan el mismo diseño.
+     */
+    @State(Scope.Benchmark)
+    public static class BucketState {
+        
+        @Param({"false", "true"})
+        public boolean quantized;
+        
+        /*
+            Estado de la prueba.
+        */
+        private RootPane root;
+        private DynamicLayout<?> layout;
+        private DockControl target;
+        
+        private final Vector3f small = new Vector3f(AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT, 0.0F);
+        private final Vector3f large = new Vector3f(AppSize.MIN_WIDTH * 2, AppSize.MIN_HEIGHT * 2, 0.0F);
+        private boolean toggle;
+        
+        @Setup
+        public void setup() {
+            root   = LayoutTrees.newRoot();
+            layout = (DynamicLayout<?>) root.getLayout();
+            target = LayoutTrees.build(root, LayoutTrees.Shape.Mixed, false)
+                                .getControl(DockControl.class);
+            if (quantized) {
+                root.setScaleQuantizer(ScaleQuantizer.tiers(0.5F, 1.0F));
+            }
+            root.restart();
+        }
+    }
+    
+    /**
+     * Quitar y volver a agregar un componente al contenedor raiz.
+     * @param bh (non-JavaDoc)
+     */
+    @Benchmark
+    public void addChildChurn(Blackhole bh) {
+        root.removeChild(churn);
+        bh.consume(root.addChild(churn, Dock.LeftTop, lockScaling));
+    }
+}
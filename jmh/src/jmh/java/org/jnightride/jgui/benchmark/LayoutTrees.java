@@ -0,0 +1,127 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.benchmark;
+
+import com.jme3.scene.Node;
+
+import com.simsilica.lemur.Container;
+import com.simsilica.lemur.Panel;
+
+import org.jnightride.jgui.AppSize;
+import org.jnightride.jgui.RootPane;
+import org.jnightride.jgui.core.Anchor;
+import org.jnightride.jgui.core.Dock;
+import org.jnightride.jgui.core.GuiFixtures;
+
+/**
+ * Genera arboles sinteticos de componentes Lemur para las pruebas de
+ * rendimiento, con los mismos componentes sin estilos que las pruebas
+ * unitarias ({@link GuiFixtures}).
+ * 
+ * @author wil
+ */
+final class LayoutTrees {
+    
+    /** Numero de componentes en los arboles planos. */
+    static final int FLAT_CHILDREN = 10_000;
+    
+    /** Niveles de anidamiento del arbol profundo. */
+    static final int DEEP_LEVELS = 50;
+    
+    /** Componentes hoja por cada nivel del arbol profundo. */
+    static final int DEEP_LEAVES = 4;
+    
+    /**
+     * Forma del arbol de componentes.
+     */
+    enum Shape {
+        /** 10k hijos directos del contenedor raiz, todos centrados. */
+        Flat,
+        
+        /** 50 contenedores anidados con algunos componentes por nivel. */
+        Deep,
+        
+        /** 10k hijos directos repartidos entre todos los Dock y anclajes. */
+        Mixed;
+    }
+    
+    private LayoutTrees() {}
+    
+    /**
+     * Genera un nuevo contenedor raiz sin aplicacion, con la resolucion
+     * minima como dimension.
+     * @return Un nuevo RootPane.
+     */
+    static RootPane newRoot() {
+        return GuiFixtures.newRoot(AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT);
+    }
+    
+    /**
+     * Llena el contenedor raiz segun la forma indicada.
+     * 
+     * @param root contenedor raiz.
+     * @param shape forma del arbol.
+     * @param lockScaling escalado bloqueado de los componentes.
+     * @return Un componente hoja representativo (el mas profundo).
+     */
+    static Node build(RootPane root, Shape shape, boolean lockScaling) {
+        switch (shape) {
+            case Flat:
+                return flat(root, lockScaling, false);
+            case Deep:
+                return deep(root, lockScaling);
+            case Mixed:
+                return flat(root, lockScaling, true);
+            default:
+                throw new AssertionError();
+        }
+    }
+    
+    private static Node flat(RootPane root, boolean lockScaling, boolean mixed) {
+        final Dock[] docks = Dock.values();
+        Node last = null;
+        for (int i = 0; i < FLAT_CHILDREN; i++) {
+            Panel panel = GuiFixtures.newPanel(16 + (i % 32), 16 + (i % 16));
+            if (!mixed) {
+                last = root.addChild(panel, Dock.Center, lockScaling);
+            } else if (i % 10 == 9) {
+                last = root.addChild(panel, Anchor.of((i % 5) * 0.25F, ((i / 5) % 5) * 0.25F), lockScaling);
+            } else {
+                last = root.addChild(panel, docks[i % docks.length], lockScaling);
+            }
+        }
+        return last;
+    }
+    
+    private static Node deep(RootPane root, boolean lockScaling) {
+        final Dock[] docks = Dock.values();
+        
+        Container parent = root;
+        float width  = AppSize.MIN_WIDTH,
+              height = AppSize.MIN_HEIGHT;
+        Node last = null;
+        for (int level = 0; level < DEEP_LEVELS; level++) {
+            for (int i = 0; i < DEEP_LEAVES; i++) {
+                last = parent.addChild(GuiFixtures.newPanel(8, 8), docks[(level + i) % docks.length], lockScaling);
+            }
+            
+            width  *= 0.95F;
+            height *= 0.95F;
+            parent = parent.addChild(GuiFixtures.newContainer(root, width, height), Dock.Center, lockScaling);
+        }
+        return last;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui;
+
+import com.jme3.export.binary.BinaryExporter;
+import com.simsilica.lemur.core.GuiLayout;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.jnightride.jgui.core.DynamicLayout;
+import org.jnightride.jgui.core.LayoutDescriptor;
+
+/**
+ * Compilador anticipado de los scripts de diseño. Evalua cada script 
+ * <code>.groovy</code> de un directorio sobre un {@link RootPane} sin
+ * pantalla (la variable {@code root} del script) y guarda el arbol
+ * resultante como un {@link LayoutDescriptor} binario (<code>.j3o</code>),
+ * que {@link LayoutLoader} carga sin inicializar el motor de Groovy.
+ * <p>
+ * Se ejecuta durante la compilacion con la tarea {@code precompileLayouts}
+ * de Gradle. Como no hay {@code GuiGlobals}, los scripts deben crear los
+ * componentes sin aplicar estilos (por ejemplo {@code new Panel(false)});
+ * los estilos se aplican al instanciar el descriptor en el juego.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class LayoutCompiler {
+    
+    /** Extension de los scripts. */
+    private static final String SCRIPT_EXTENSION = ".groovy";
+    
+    /** Extension de los descriptores. */
+    public static final String DESCRIPTOR_EXTENSION = ".j3o";
+    
+    private LayoutCompiler() {}
+    
+    /**
+     * Punto de entrada: {@code LayoutCompiler <scripts> <salida>}.
+     * @param args directorio de los scripts y directorio de salida.
+     * @throws IOException si no se pudo leer o escribir un archivo.
+     * @throws ScriptException si un script contiene errores.
+     */
+    public static void main(String[] args) throws IOException, ScriptException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: LayoutCompiler <scripts> <output>");
+        }
+        
+        final File input  = new File(args[0]),
+                   output = new File(args[1]);
+        final File[] scripts = input.listFiles((dir, name) -> name.endsWith(SCRIPT_EXTENSION));
+        if (scripts == null)
+            return;
+        
+        final ScriptEngine engine = new ScriptEngineManager().getEngineByName("groovy");
+        if (engine == null) {
+            throw new IllegalStateException("Groovy script engine not found.");
+        }
+        
+        Files.createDirectories(output.toPath());
+        for (final File script : scripts) {
+            final String name = script.getName();
+            final File target = new File(output, name.substring(0, name.length() - SCRIPT_EXTENSION.length()) 
+                                                    + DESCRIPTOR_EXTENSION);
+            BinaryExporter.getInstance().save(compile(engine, script), target);
+        }
+    }
+    
+    /**
+     * Evalua un script de diseño y genera su descriptor.
+     * 
+     * @param engine motor de Groovy.
+     * @param script archivo del script.
+     * @return Un LayoutDescriptor como valor.
+     * @throws IOException si no se pudo leer el script.
+     * @throws ScriptException si el script contiene errores.
+     */
+    public static LayoutDescriptor compile(ScriptEngine engine, File script) throws IOException, ScriptException {
+        final RootPane root = new RootPane(null, false);
+        engine.put("root", root);
+        try (Reader reader = Files.newBufferedReader(script.toPath(), StandardCharsets.UTF_8)) {
+            engine.eval(reader);
+        }
+        
+        // Sincroniza las dimensiones preferidas de los componentes con
+        // sus estilos.
+        root.updateLogicalState(0.0F);
+        
+        final GuiLayout layout = root.getLayout();
+        if (!(layout instanceof DynamicLayout<?>)) {
+            throw new IllegalStateException("Layout=[" + layout);
+        }
+        return LayoutDescriptor.of((DynamicLayout<?>) layout);
+    }
+}
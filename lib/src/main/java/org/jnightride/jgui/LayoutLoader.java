@@ -0,0 +1,111 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui;
+
+import com.jme3.export.Savable;
+import com.jme3.export.binary.BinaryImporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.annotation.Nonnull;
+
+import org.jnightride.jgui.core.LayoutDescriptor;
+
+/**
+ * Cargador de los diseños precompilados por {@link LayoutCompiler}. Los
+ * descriptores se empaquetan en la carpeta {@code layouts/} del jar y se
+ * cargan sin evaluar los scripts de diseño.
+ * <p>
+ * Los componentes creados aplican los estilos de <code>Lemur</code>, que
+ * normalmente se definen con scripts de Groovy ({@code BaseStyles}); por
+ * eso {@code groovy-jsr223} sigue siendo una dependencia de ejecucion
+ * ({@code runtimeOnly}) de la libreria.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class LayoutLoader {
+    
+    /** Carpeta de los descriptores dentro del classpath. */
+    public static final String LAYOUTS_PATH = "layouts/";
+    
+    private LayoutLoader() {}
+    
+    /**
+     * Carga un descriptor precompilado del classpath.
+     * 
+     * @param name nombre del script, sin extension.
+     * @return Un LayoutDescriptor como valor.
+     * @throws IOException si el descriptor no existe o no es valido.
+     */
+    public static LayoutDescriptor load(@Nonnull String name) throws IOException {
+        final String path = LAYOUTS_PATH + name + LayoutCompiler.DESCRIPTOR_EXTENSION;
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = LayoutLoader.class.getClassLoader();
+        }
+        
+        try (InputStream in = loader.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IOException("Layout not found: " + path);
+            }
+            return load(in);
+        }
+    }
+    
+    /**
+     * Lee un descriptor.
+     * @param in flujo de entrada.
+     * @return Un LayoutDescriptor como valor.
+     * @throws IOException si el descriptor no es valido.
+     */
+    public static LayoutDescriptor load(@Nonnull InputStream in) throws IOException {
+        final Savable savable = BinaryImporter.getInstance().load(in);
+        if (!(savable instanceof LayoutDescriptor)) {
+            throw new IOException("Not a layout descriptor: " + savable);
+        }
+        return (LayoutDescriptor) savable;
+    }
+    
+    /**
+     * Carga un descriptor precompilado y agrega sus componentes al
+     * contenedor raiz.
+     * 
+     * @param root contenedor raiz.
+     * @param name nombre del script, sin extension.
+     * @throws IOException si el descriptor no existe o no es valido.
+     */
+    public static void loadInto(@Nonnull RootPane root, @Nonnull String name) throws IOException {
+        loadInto(root, name, LayoutDescriptor.REFLECTIVE);
+    }
+    
+    /**
+     * Carga un descriptor precompilado y agrega sus componentes al
+     * contenedor raiz, creandolos con la fabrica dada.
+     * 
+     * @param root contenedor raiz.
+     * @param name nombre del script, sin extension.
+     * @param factory fabrica de componentes.
+     * @throws IOException si el descriptor no existe o no es valido.
+     */
+    public static void loadInto(@Nonnull RootPane root, @Nonnull String name, 
+                                @Nonnull LayoutDescriptor.ComponentFactory factory) throws IOException {
+        load(name).instantiate(root, root, factory);
+    }
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.BaseAppState;
+import com.jme3.renderer.Camera;
+import com.jme3.system.AppSettings;
+import com.jme3.system.JmeContext;
+
+import com.simsilica.lemur.core.GuiLayout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import org.jnightride.jgui.core.DynamicLayout;
+import org.jnightride.jgui.core.LayoutScheduler;
+
+/**
+ * Un <code>ResizeState</code> vigila la resolucion de la aplicacion (la
+ * configuracion del contexto y las dimensiones de la camara) y reinicia el
+ * diseño de los {@link RootPane} registrados cuando esta cambia.
+ * <p>
+ * Todas las señales de cambio e invalidacion que se reciban durante un
+ * frame se agrupan, de modo que cada contenedor raiz se reinicia como mucho
+ * una vez por frame, al final del mismo ({@link #postRender()}). De manera
+ * opcional se puede establecer un tiempo de espera para no reiniciar el
+ * diseño mientras el usuario sigue redimensionando la ventana.
+ * <p>
+ * Si se establece un presupuesto por frame ({@link #setFrameBudget(float)}),
+ * los reinicios se reparten entre varios frames mediante un
+ * {@link LayoutScheduler} por cada contenedor raiz.
+ * <p>
+ * Con un presupuesto para frames libres ({@link #setIdleBudget(float)}),
+ * los frames sin reinicios pendientes ni en curso se aprovechan para
+ * materializar los hijos aplazados de los contenedores registrados.
+ * <p>
+ * Con un {@link ScaleService} ({@link #setScaleService(ScaleService)}), la
+ * resolucion se entrega al servicio una sola vez por cambio y los
+ * contenedores suscritos se reinician en su orden de prioridad, antes que
+ * el resto de contenedores registrados.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public class ResizeState extends BaseAppState {
+    
+    /** Contenedores raiz registrados, en orden de registro. */
+    private final List<RootPane> roots = new ArrayList<>();
+    
+    /** Contenedores raiz con un reinicio pendiente. */
+    private final Set<RootPane> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+    
+    /*
+        Ultima resolucion observada.
+    */
+    private int appWidth, appHeight;
+    private int camWidth, camHeight;
+    
+    /**
+     * Tiempo (en segundos) que la resolucion debe permanecer estable antes
+     * de reiniciar el diseño, {@code 0} para no esperar.
+     */
+    private float debounce;
+    
+    /** Tiempo transcurrido desde el ultimo cambio de resolucion. */
+    private float quietTime;
+    
+    /** Determina si hay un cambio de resolucion sin aplicar. */
+    private boolean resizing;
+    
+    /**
+     * Presupuesto de tiempo por frame en milisegundos, {@code 0} para
+     * reiniciar todo el diseño en un solo frame.
+     */
+    private float frameBudget;
+    
+    /** Planificadores de cada contenedor raiz. */
+    private final Map<RootPane, LayoutScheduler> schedulers = new IdentityHashMap<>();
+    
+    /** Planificadores con un reinicio en curso. */
+    private final List<LayoutScheduler> running = new ArrayList<>();
+    
+    /**
+     * Presupuesto en milisegundos para materializar hijos aplazados en los
+     * frames libres, {@code 0} para no hacerlo.
+     */
+    private float idleBudget;
+    
+    /** Servicio de escalado compartido, opcional. */
+    private ScaleService scaleService;
+
+    /**
+     * Genera un nuevo <code>ResizeState</code> sin tiempo de espera.
+     */
+    public ResizeState() {
+        this(0.0F);
+    }
+    
+    /**
+     * Genera un nuevo <code>ResizeState</code>.
+     * @param debounce tiempo de espera en segundos.
+     */
+    public ResizeState(float debounce) {
+        this.setDebounce(debounce);
+    }
+    
+    /**
+     * Registra un nuevo contenedor raiz.
+     * @param root contenedor raiz.
+     */
+    public void addRootPane(@Nonnull RootPane root) {
+        if (!roots.contains(root)) {
+            roots.add(root);
+        }
+    }
+    
+    /**
+     * Elimina un contenedor raiz registrado.
+     * @param root contenedor raiz.
+     */
+    public void removeRootPane(RootPane root) {
+        roots.remove(root);
+        pending.remove(root);
+        
+        LayoutScheduler scheduler = schedulers.remove(root);
+        if (scheduler != null) {
+            scheduler.cancel();
+            running.remove(scheduler);
+        }
+    }
+    
+    /**
+     * Solicita el reinicio del diseño de un contenedor raiz, se aplica al
+     * final del frame sin importar cuantas veces se solicite.
+     * @param root contenedor raiz.
+     */
+    public void invalidate(@Nonnull RootPane root) {
+        pending.add(root);
+    }
+    
+    /**
+     * Solicita el reinicio del diseño de todos los contenedores raiz
+     * registrados.
+     */
+    public void invalidateAll() {
+        pending.addAll(roots);
+        if (scaleService != null) {
+            for (int i = 0, n = scaleService.size(); i < n; i++) {
+                pending.add(scaleService.rootAt(i));
+            }
+        }
+    }
+    
+    /**
+     * Reinicia de inmediato el diseño de todos los contenedores con un
+     * reinicio pendiente.
+     */
+    public void flush() {
+        if (pending.isEmpty())
+            return;
+        
+        // Las solicitudes se pasan a una lista local: un reinicio puede
+        // volver a invalidar un contenedor (layouts anidados que cambian
+        // las dimensiones de su padre), esas quedan para el siguiente frame.
+        final List<RootPane> flushing = new ArrayList<>(pending.size());
+        
+        // Primero los suscritos al servicio, por prioridad.
+        if (scaleService != null) {
+            for (int i = 0, n = scaleService.size(); i < n; i++) {
+                final RootPane root = scaleService.rootAt(i);
+                if (pending.remove(root)) {
+                    flushing.add(root);
+                }
+            }
+        }
+        
+        for (int i = 0, n = roots.size(); i < n; i++) {
+            final RootPane root = roots.get(i);
+            if (pending.remove(root)) {
+                flushing.add(root);
+            }
+        }
+        
+        // Contenedores invalidados sin registrar.
+        flushing.addAll(pending);
+        pending.clear();
+        resizing = false;
+        
+        for (int i = 0; i < flushing.size(); i++) {
+            restart(flushing.get(i));
+        }
+    }
+    
+    /*
+        Reinicia el diseño de un contenedor, de golpe o repartido entre
+        varios frames segun el presupuesto.
+    */
+    private void restart(RootPane root) {
+        final GuiLayout layout = root.getLayout();
+        if (frameBudget <= 0.0F 
+                || !(layout instanceof DynamicLayout)) {
+            root.restart();
+            return;
+        }
+        
+        LayoutScheduler scheduler = schedulers.get(root);
+        if (scheduler == null 
+                || scheduler.getLayout() != layout) {
+            scheduler = new LayoutScheduler((DynamicLayout<?>) layout, frameBudget);
+            schedulers.put(root, scheduler);
+        }
+        
+        root.refreshScaleContext();
+        scheduler.start();
+        if (!running.contains(scheduler)) {
+            running.add(scheduler);
+        }
+    }
+    
+    /**
+     * Devuelve el planificador de un contenedor raiz; se puede utilizar
+     * para registrar oyentes del progreso del reinicio.
+     * 
+     * @param root contenedor raiz.
+     * @return Planificador del contenedor, de lo contrario <code>null</code>
+     *          si todavia no se repartio ningun reinicio.
+     */
+    public LayoutScheduler getScheduler(RootPane root) {
+        return schedulers.get(root);
+    }
+    
+    /**
+     * Establece el presupuesto de tiempo por frame para los reinicios.
+     * @param frameBudget presupuesto en milisegundos, {@code 0} para 
+     *                      reiniciar todo el diseño en un solo frame.
+     */
+    public void setFrameBudget(float frameBudget) {
+        if (Float.isNaN(frameBudget) 
+                || Float.isInfinite(frameBudget) || frameBudget < 0.0F)
+            throw new IllegalArgumentException("FrameBudget=[" + frameBudget);
+        
+        this.frameBudget = frameBudget;
+        for (final LayoutScheduler scheduler : schedulers.values()) {
+            if (frameBudget > 0.0F) {
+                scheduler.setFrameBudget(frameBudget);
+            }
+        }
+    }
+
+    public float getFrameBudget() {
+        return frameBudget;
+    }
+    
+    /**
+     * Establece el servicio de escalado compartido; recibe la resolucion
+     * con cada cambio y sus contenedores se reinician por prioridad.
+     * @param scaleService servicio, o <code>null</code> para no utilizarlo.
+     */
+    public void setScaleService(ScaleService scaleService) {
+        this.scaleService = scaleService;
+        if (scaleService != null && appWidth > 0 && appHeight > 0) {
+            scaleService.setResolution(appWidth, appHeight);
+        }
+    }
+
+    public ScaleService getScaleService() {
+        return scaleService;
+    }
+    
+    /**
+     * Establece el presupuesto de los frames libres para materializar los
+     * hijos aplazados ({@link DynamicLayout#realizeDeferred(long)}).
+     * @param idleBudget presupuesto en milisegundos, {@code 0} para que
+     *                      solo se materialicen al mostrarse.
+     */
+    public void setIdleBudget(float idleBudget) {
+        if (Float.isNaN(idleBudget) 
+                || Float.isInfinite(idleBudget) || idleBudget < 0.0F)
+            throw new IllegalArgumentException("IdleBudget=[" + idleBudget);
+        
+        this.idleBudget = idleBudget;
+    }
+
+    public float getIdleBudget() {
+        return idleBudget;
+    }
+    
+    /**
+     * Establece el tiempo que la resolucion debe permanecer estable antes
+     * de reiniciar el diseño.
+     * @param debounce tiempo en segundos, {@code 0} para no esperar.
+     */
+    public final void setDebounce(float debounce) {
+        if (Float.isNaN(debounce) 
+                || Float.isInfinite(debounce) || debounce < 0.0F)
+            throw new IllegalArgumentException("Debounce=[" + debounce);
+        
+        this.debounce = debounce;
+    }
+
+    public float getDebounce() {
+        return debounce;
+    }
+    
+    /**
+     * Determina si algun contenedor tiene un reinicio pendiente.
+     * @return Un valor booleano.
+     */
+    public boolean isPending() {
+        return !pending.isEmpty();
+    }
+
+    @Override
+    protected void initialize(Application app) {
+        readSize(app);
+    }
+
+    @Override
+    protected void cleanup(Application app) {
+        pending.clear();
+        for (final LayoutScheduler scheduler : running) {
+            scheduler.cancel();
+        }
+        running.clear();
+    }
+
+    @Override
+    protected void onEnable() {
+        // Al volver a habilitarse, la resolucion pudo haber cambiado.
+        if (readSize(getApplication())) {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    protected void onDisable() {
+    }
+
+    @Override
+    public void update(float tpf) {
+        if (readSize(getApplication())) {
+            invalidateAll();
+            resizing  = true;
+            quietTime = 0.0F;
+        } else {
+            quietTime += tpf;
+        }
+    }
+
+    @Override
+    public void postRender() {
+        if (!isEnabled())
+            return;
+        
+        // Mientras se sigue redimensionando, esperamos.
+        if (!pending.isEmpty() 
+                && !(resizing && quietTime < debounce)) {
+            flush();
+        }
+        
+        // Los reinicios en curso comparten el presupuesto del frame.
+        if (!running.isEmpty()) {
+            final long deadline = System.nanoTime() + (long) (frameBudget * 1_000_000L);
+            for (int i = 0; i < running.size(); i++) {
+                final long budget = Math.max(0L, deadline - System.nanoTime());
+                if (running.get(i).update(budget)) {
+                    running.remove(i--);
+                }
+            }
+        } else if (idleBudget > 0.0F && pending.isEmpty()) {
+            realizeIdle();
+        }
+    }
+    
+    /*
+        Frame libre: materializa hijos aplazados hasta agotar el
+        presupuesto, un contenedor detras de otro.
+    */
+    private void realizeIdle() {
+        final long deadline = System.nanoTime() + (long) (idleBudget * 1_000_000L);
+        for (final RootPane root : roots) {
+            final GuiLayout layout = root.getLayout();
+            if (!(layout instanceof DynamicLayout) 
+                    || !((DynamicLayout<?>) layout).hasDeferred())
+                continue;
+            
+            final long budget = deadline - System.nanoTime();
+            if (budget <= 0L)
+                return;
+            ((DynamicLayout<?>) layout).realizeDeferred(budget);
+        }
+    }
+    
+    /*
+        Lee la resolucion actual, devuelve 'true' si es distinta a la
+        ultima observada. Sin contexto (aun no creado o ya destruido) no
+        hay resolucion que leer y se considera que no cambio.
+    */
+    private boolean readSize(Application app) {
+        final JmeContext context = app.getContext();
+        final AppSettings settings = context == null ? null : context.getSettings();
+        if (settings == null)
+            return false;
+        
+        final Camera cam = app.getCamera();
+        
+        final int aw = settings.getWidth(),
+                  ah = settings.getHeight(),
+                  cw = cam == null ? 0 : cam.getWidth(),
+                  ch = cam == null ? 0 : cam.getHeight();
+        
+        if (aw == appWidth && ah == appHeight
+                && cw == camWidth && ch == camHeight) {
+            return false;
+        }
+        
+        appWidth  = aw;
+        appHeight = ah;
+        camWidth  = cw;
+        camHeight = ch;
+        
+        // Los factores compartidos se calculan una sola vez.
+        if (scaleService != null && aw > 0 && ah > 0) {
+            scaleService.setResolution(aw, ah);
+        }
+        return true;
+    }
+}
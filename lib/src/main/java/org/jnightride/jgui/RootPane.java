@@ -16,14 +16,21 @@
 package org.jnightride.jgui;
 
 import com.jme3.app.Application;
+import com.jme3.math.Vector3f;
 import com.jme3.system.AppSettings;
 import com.simsilica.lemur.Container;
+import com.simsilica.lemur.SpringGridLayout;
 import com.simsilica.lemur.core.GuiLayout;
+import com.simsilica.lemur.style.ElementId;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.jnightride.jgui.core.DynamicLayout;
+import org.jnightride.jgui.core.LayoutDiskCache;
+import org.jnightride.jgui.core.LayoutMetrics;
+import org.jnightride.jgui.core.ParallelLayout;
+import org.jnightride.jgui.core.SpatialIndex;
 
 /**
  * Un objeto de la clase <code>RootPane</code> se utiliza como contenero
@@ -44,12 +51,62 @@ public class RootPane extends Container implements Scalable<RootPane> {
      * Aplicacion principal del juego <code>jme3</code>.
      */
     private final Application app;
+    
+    /**
+     * Instantanea de los datos de escalado de este contenedor, solo se
+     * actualiza cuando cambia la resolucion o las dimensiones del mismo.
+     */
+    private final ScaleContext scaleContext = new ScaleContext();
+    
+    /**
+     * Indice espacial con los rectangulos en pantalla de los componentes,
+     * para seleccion y consultas por posicion.
+     */
+    private final SpatialIndex spatialIndex = new SpatialIndex(this);
+    
+    /**
+     * Determina si los componentes fuera de la pantalla se ocultan y se
+     * aplaza su diseño.
+     */
+    private boolean autoCulling;
+    
+    /** Servicio de escalado compartido, si el contenedor esta suscrito. */
+    private ScaleService scaleService;
+    
+    /*
+        Ultimo contexto compartido observado y su version.
+    */
+    private ScaleContext sharedContext;
+    private long sharedVersion;
+    
+    /*
+        Contexto obtenido del servicio, con las dimensiones y la politica
+        de ajuste con las que se obtuvo; solo se vuelve a buscar (liberando
+        el anterior) cuando alguno de estos valores cambia.
+    */
+    private ScaleContext serviceContext;
+    private float serviceWidth, serviceHeight;
+    private ScaleQuantizer serviceQuantizer;
 
     /**
      * Genere un nuevo contenero raiz <code>RootPane</code>
      * @param app (non-JavaDoc).
      */
     public RootPane(Application app) {
+        this(app, true);
+    }
+    
+    /**
+     * Genere un nuevo contenero raiz <code>RootPane</code>, sin aplicar
+     * estilos si {@code applyStyles} es {@code false}; de esta forma se
+     * puede utilizar sin inicializar {@code GuiGlobals}, por ejemplo en
+     * herramientas o pruebas de rendimiento sin pantalla.
+     * 
+     * @param app (non-JavaDoc).
+     * @param applyStyles {@code true} para aplicar los estilos de Lemur.
+     */
+    public RootPane(Application app, boolean applyStyles) {
+        super(new SpringGridLayout(), applyStyles, new ElementId(ELEMENT_ID), null);
         this.app = app;
         
         // Configuramo nuetro contenedor raiz.
@@ -68,6 +125,19 @@ public class RootPane extends Container implements Scalable<RootPane> {
         super.setLayout(layout);
     }
 
+    // [ Setters ] :Establece nuevas dimensiones para el contenedor raiz,
+    //              el contexto de escalado se actualiza de inmediato.
+    @Override
+    public void setPreferredSize(Vector3f size) {
+        super.setPreferredSize(size);
+        
+        // Los estilos pueden invocar este metodo desde el constructor
+        // de Container, antes de inicializar el contexto.
+        if (scaleContext != null) {
+            refreshScaleContext();
+        }
+    }
+
     /**
      * (non-JavaDoc)
      */
@@ -89,21 +159,255 @@ public class RootPane extends Container implements Scalable<RootPane> {
      */
     @Override
     public AppSize getAppSize() {
-        if (app == null) {
+        if (scaleService != null) {
+            return scaleService.getAppSize();
+        }
+        // Sin aplicacion (o sin contexto, en herramientas y pruebas) se
+        // utiliza la resolucion minima.
+        if (app == null || app.getContext() == null) {
             return new AppSize();
         }
         final AppSettings as = app.getContext().getSettings();
         return new AppSize(as.getWidth(), as.getHeight());
     }
 
+    /**
+     * (non-JavaDoc)
+     */
+    @Override
+    public float getScaleFactorWidth() {
+        return getScaleContext().getScaleFactorWidth();
+    }
+
+    /**
+     * (non-JavaDoc)
+     */
+    @Override
+    public float getScaleFactorHeight() {
+        return getScaleContext().getScaleFactorHeight();
+    }
+
+    /**
+     * Devuelve el contexto de escalado cacheado de este contenedor. El
+     * contexto se refresca al invocar {@link #restart()}, al cambiar las
+     * dimensiones del contenedor o con {@link #refreshScaleContext()}.
+     * 
+     * @return Un ScaleContext como valor.
+     */
+    @Override
+    public ScaleContext getScaleContext() {
+        if (scaleService != null) {
+            return serviceContext;
+        }
+        if (scaleContext.getVersion() == 0L) {
+            refreshScaleContext();
+        }
+        return scaleContext;
+    }
+    
+    /*
+        Obtiene del servicio el contexto para las dimensiones y la politica
+        de ajuste actuales, solo si alguna cambio (liberando el anterior).
+    */
+    private void acquireServiceContext() {
+        final float width  = getWidth(),
+                    height = getHeight();
+        final ScaleQuantizer quantizer = scaleContext.getQuantizer();
+        if (serviceContext != null && width == serviceWidth 
+                && height == serviceHeight && quantizer == serviceQuantizer) {
+            return;
+        }
+        
+        final ScaleContext previous = serviceContext;
+        serviceContext   = scaleService.acquire(width, height, quantizer);
+        serviceWidth     = width;
+        serviceHeight    = height;
+        serviceQuantizer = quantizer;
+        if (previous != null) {
+            scaleService.release(previous);
+        }
+    }
+    
+    /**
+     * Devuelve el indice espacial de los componentes de este contenedor;
+     * se actualiza de forma incremental conforme cambia el diseño.
+     * 
+     * @return Un SpatialIndex como valor.
+     */
+    @Override
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+    
+    /**
+     * Habilita o deshabilita el recorte automatico. Con el habilitado, los
+     * componentes cuyo rectangulo queda fuera de la pantalla se ocultan y
+     * no se diseña su subarbol, al igual que los subarboles ocultos con
+     * {@code DockControl.setVisible(false)}; cuando vuelven a ser visibles
+     * se ponen al dia con un reinicio.
+     * 
+     * @param autoCulling {@code true} para habilitarlo.
+     */
+    public void setAutoCulling(boolean autoCulling) {
+        if (this.autoCulling == autoCulling)
+            return;
+        
+        this.autoCulling = autoCulling;
+        restart();
+    }
+
+    /**
+     * (non-JavaDoc)
+     */
+    @Override
+    public boolean isAutoCulling() {
+        return autoCulling;
+    }
+    
+    /**
+     * Establece la politica de ajuste de los factores de escala; con ella,
+     * los cambios de resolucion que no cambian los factores ajustados no
+     * invalidan el diseño y los componentes reutilizan el resultado de los
+     * intervalos ya conocidos.
+     * 
+     * @param quantizer politica, o <code>null</code> para no ajustar.
+     */
+    public void setScaleQuantizer(ScaleQuantizer quantizer) {
+        scaleContext.setQuantizer(quantizer);
+        restart();
+    }
+
+    public ScaleQuantizer getScaleQuantizer() {
+        return scaleContext.getQuantizer();
+    }
+    
+    /*
+        Establece el servicio de escalado, lo invoca el propio servicio al
+        suscribir o cancelar la suscripcion.
+    */
+    void setScaleService(ScaleService scaleService) {
+        if (serviceContext != null) {
+            this.scaleService.release(serviceContext);
+            this.serviceContext = null;
+        }
+        this.scaleService  = scaleService;
+        this.sharedContext = null;
+        if (scaleService != null) {
+            acquireServiceContext();
+        }
+    }
+
+    public ScaleService getScaleService() {
+        return scaleService;
+    }
+    
+    /**
+     * Vuelve a leer la resolucion de pantalla y las dimensiones de este
+     * contenedor; la version del contexto solo cambia si alguno de estos
+     * valores es distinto al anterior. Si el contenedor esta suscrito a un
+     * {@link ScaleService}, solo se comprueba si su contexto compartido
+     * cambio.
+     * 
+     * @return {@code true} si el contexto cambio, de lo contrario
+     *          {@code false}.
+     */
+    public boolean refreshScaleContext() {
+        // Con un servicio compartido, la resolucion la lee el servicio.
+        if (scaleService != null) {
+            acquireServiceContext();
+            final ScaleContext context = serviceContext;
+            final boolean changed = context != sharedContext 
+                                    || context.getVersion() != sharedVersion;
+            sharedContext = context;
+            sharedVersion = context.getVersion();
+            return changed;
+        }
+        
+        final AppSize appSize = getAppSize();
+        return scaleContext.update(appSize.getWidth(), appSize.getHeight(), getWidth(), getHeight());
+    }
+
     /**
      * (non-JavaDoc)
      */
     @Override
     public void restart() {
+        LayoutMetrics.restarted();
+        refreshScaleContext();
+        
         GuiLayout layout = getLayout();
         if ((layout instanceof DynamicLayout<?>)) {
             ((DynamicLayout<?>) layout).restart();
         }
     }
+
+    /**
+     * Reinicia el diseño calculando las dimensiones y posiciones de los 
+     * subarboles en paralelo; solo la aplicacion del resultado se hace en
+     * el hilo actual, que debe ser el de renderizado.
+     * 
+     * @param parallel motor de calculo en paralelo.
+     */
+    public void restart(ParallelLayout parallel) {
+        LayoutMetrics.restarted();
+        refreshScaleContext();
+        
+        GuiLayout layout = getLayout();
+        if ((layout instanceof DynamicLayout<?>)) {
+            parallel.restart((DynamicLayout<?>) layout);
+        }
+    }
+
+    /**
+     * Reinicia el diseño a partir de una cache en disco: si la cache
+     * corresponde a la resolucion, escala y estructura actuales, el diseño
+     * guardado se aplica directamente; de lo contrario se reinicia de forma
+     * normal y se vuelve a guardar.
+     * 
+     * @param cache cache del diseño en disco.
+     */
+    public void restart(LayoutDiskCache cache) {
+        LayoutMetrics.restarted();
+        refreshScaleContext();
+        
+        GuiLayout layout = getLayout();
+        if ((layout instanceof DynamicLayout<?>)) {
+            DynamicLayout<?> dl = (DynamicLayout<?>) layout;
+            AppSize appSize = getAppSize();
+            if (!cache.load(dl, appSize)) {
+                dl.restart();
+                cache.save(dl, appSize);
+            }
+        }
+    }
+
+    /**
+     * Solicita el reinicio del diseño. Si la aplicacion tiene un 
+     * {@link ResizeState} habilitado, el reinicio se agrupa con el resto de
+     * solicitudes y se aplica una sola vez al final del frame; de lo 
+     * contrario se reinicia de inmediato.
+     */
+    public void requestRestart() {
+        final ResizeState state = app == null 
+                                    ? null : app.getStateManager().getState(ResizeState.class);
+        if (state != null && state.isEnabled()) {
+            state.invalidate(this);
+        } else {
+            restart();
+        }
+    }
+
+    /**
+     * Ejecuta una pasada de diseño incremental, a diferencia de 
+     * {@link #restart()} solo se recalculan los componentes marcados como
+     * sucios o afectados por un cambio en el contexto de escalado.
+     */
+    public void validateLayout() {
+        refreshScaleContext();
+        
+        GuiLayout layout = getLayout();
+        if ((layout instanceof DynamicLayout<?>)) {
+            ((DynamicLayout<?>) layout).validate();
+        }
+    }
 }
@@ -17,6 +17,8 @@ package org.jnightride.jgui;
 
 import com.simsilica.lemur.Panel;
 
+import org.jnightride.jgui.core.SpatialIndex;
+
 /**
  * Si queremos que nuestros componentes sean redimensionables a travez del
  * diseño dinamico, se tiene que implementar la interfaz <code>Scalable</code>.
@@ -70,6 +72,41 @@ public interface Scalable<E extends Panel> {
      */
     public AppSize getAppSize();
     
+    /**
+     * Devuelve una instantanea con los datos de escalado del contenedor
+     * raiz. La implementacion predeterminada genera un nuevo contexto en
+     * cada llamada; los contenedores que quieran evitar consultas repetidas
+     * deben sobrescribir este metodo y devolver un contexto cacheado.
+     * 
+     * @return Un ScaleContext como valor.
+     */
+    default ScaleContext getScaleContext() {
+        final AppSize as = getAppSize();
+        final ScaleContext context = new ScaleContext();
+        context.update(as.getWidth(), as.getHeight(), getWidth(), getHeight());
+        return context;
+    }
+    
+    /**
+     * Devuelve el indice espacial de los componentes del contenedor, si
+     * lo tiene.
+     * 
+     * @return Un SpatialIndex como valor, de lo contrario <code>null</code>.
+     */
+    default SpatialIndex getSpatialIndex() {
+        return null;
+    }
+    
+    /**
+     * Determina si los componentes fuera de la pantalla se ocultan y se
+     * aplaza su diseño (recorte automatico).
+     * 
+     * @return Un valor booleano.
+     */
+    default boolean isAutoCulling() {
+        return false;
+    }
+    
     /**
      * Metodo encargado de reiniciar el escalado de todos los componentes que
      * alverga el contenedor padre que implemente esta interfza.
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui;
+
+/**
+ * Un <code>ScaleContext</code> es una instantanea de los datos de escalado
+ * de un contenedor raiz: resolucion de pantalla, dimensiones del contenedor
+ * y los factores de escala derivados de ellos.
+ * <p>
+ * Cada vez que alguno de estos valores cambia, se incrementa la version del
+ * contexto; de esta forma los componentes pueden saber si su ultimo escalado
+ * sigue siendo valido sin volver a consultar al contenedor raiz.
+ * <p>
+ * Con un {@link ScaleQuantizer}, los factores de escala se ajustan a
+ * valores discretos y la version solo cambia si cambian los factores
+ * ajustados o las dimensiones del contenedor.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class ScaleContext {
+    
+    /** Largo de la pantalla. */
+    private float appWidth;
+    
+    /** Ancho de la pantalla. */
+    private float appHeight;
+    
+    /** Largo del contenedor raiz. */
+    private float width;
+    
+    /** Ancho del contenedor raiz. */
+    private float height;
+    
+    /** Factor de escala del largo. */
+    private float scaleFactorWidth;
+    
+    /** Factor de escala del ancho. */
+    private float scaleFactorHeight;
+    
+    /** Version de la instantanea, cambia con cada actualizacion. */
+    private long version;
+    
+    /** Politica de ajuste de los factores de escala, opcional. */
+    private ScaleQuantizer quantizer;
+
+    /**
+     * Genera un nuevo contexto vacio, sin ninguna version valida.
+     */
+    public ScaleContext() {
+        this.version = 0L;
+    }
+    
+    /**
+     * Actualiza la instantanea con nuevos datos de escalado. Si los datos
+     * son identicos a los actuales, no se hace nada.
+     * 
+     * @param appWidth largo de la pantalla.
+     * @param appHeight ancho de la pantalla.
+     * @param width largo del contenedor raiz.
+     * @param height ancho del contenedor raiz.
+     * @return {@code true} si la instantanea cambio, de lo contrario
+     *          {@code false}.
+     */
+    public boolean update(float appWidth, float appHeight, float width, float height) {
+        if (this.version != 0L
+                && Float.compare(this.appWidth, appWidth) == 0
+                && Float.compare(this.appHeight, appHeight) == 0
+                && Float.compare(this.width, width) == 0
+                && Float.compare(this.height, height) == 0) {
+            return false;
+        }
+        
+        final float sfw = quantize(appWidth / width),
+                    sfh = quantize(appHeight / height);
+        
+        // Con los factores ajustados, si no cambian el diseño sigue
+        // siendo valido.
+        final boolean same = this.version != 0L && quantizer != null
+                            && Float.compare(this.width, width) == 0
+                            && Float.compare(this.height, height) == 0
+                            && Float.compare(this.scaleFactorWidth, sfw) == 0
+                            && Float.compare(this.scaleFactorHeight, sfh) == 0;
+        
+        this.appWidth  = appWidth;
+        this.appHeight = appHeight;
+        this.width     = width;
+        this.height    = height;
+        if (same) {
+            return false;
+        }
+        
+        this.scaleFactorWidth  = sfw;
+        this.scaleFactorHeight = sfh;
+        this.version++;
+        return true;
+    }
+    
+    /**
+     * Establece la politica de ajuste de los factores de escala, los
+     * factores se vuelven a calcular de inmediato.
+     * 
+     * @param quantizer politica, o <code>null</code> para no ajustar.
+     */
+    public void setQuantizer(ScaleQuantizer quantizer) {
+        this.quantizer = quantizer;
+        if (this.version != 0L) {
+            this.scaleFactorWidth  = quantize(appWidth / width);
+            this.scaleFactorHeight = quantize(appHeight / height);
+            this.version++;
+        }
+    }
+    
+    private float quantize(float scaleFactor) {
+        return quantizer == null ? scaleFactor : quantizer.quantize(scaleFactor);
+    }
+    
+    /**
+     * Determina si los factores de escala se ajustan con un
+     * {@link ScaleQuantizer}.
+     * @return Un valor booleano.
+     */
+    public boolean isQuantized() {
+        return quantizer != null;
+    }
+    
+    /**
+     * Clave del intervalo de escala actual: dos contextos con la misma
+     * clave tienen los mismos factores de escala.
+     * @return Un long como valor.
+     */
+    public long getBucket() {
+        return ((long) Float.floatToIntBits(scaleFactorWidth) << 32) 
+                | (Float.floatToIntBits(scaleFactorHeight) & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public String toString() {
+        return "ScaleContext{" + "appWidth=" + appWidth + ", appHeight=" + appHeight 
+                + ", width=" + width + ", height=" + height 
+                + ", scaleFactorWidth=" + scaleFactorWidth + ", scaleFactorHeight=" + scaleFactorHeight 
+                + ", version=" + version + '}';
+    }
+    
+    // Getters.
+    public float getAppWidth()          { return appWidth; }
+    public float getAppHeight()         { return appHeight; }
+    public float getWidth()             { return width; }
+    public float getHeight()            { return height; }
+    public float getScaleFactorWidth()  { return scaleFactorWidth; }
+    public float getScaleFactorHeight() { return scaleFactorHeight; }
+    public long getVersion()            { return version; }
+    public ScaleQuantizer getQuantizer() { return quantizer; }
+}
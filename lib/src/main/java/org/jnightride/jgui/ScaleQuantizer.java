@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Un <code>ScaleQuantizer</code> es la politica con la que un 
+ * {@link ScaleContext} ajusta los factores de escala a un conjunto de
+ * valores discretos; de esta forma, pequeñas diferencias en la resolucion
+ * (por ejemplo 1919x1080 frente a 1920x1080) no invalidan el diseño.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+@FunctionalInterface
+public interface ScaleQuantizer {
+    
+    /**
+     * Ajusta un factor de escala.
+     * @param scaleFactor factor de escala calculado.
+     * @return Factor de escala ajustado.
+     */
+    float quantize(float scaleFactor);
+    
+    /**
+     * Genera una politica que ajusta los factores al multiplo mas cercano
+     * de {@code step} (por ejemplo {@code 1/64}), como minimo un intervalo.
+     * 
+     * @param step intervalo.
+     * @return Un ScaleQuantizer como valor.
+     */
+    static ScaleQuantizer step(float step) {
+        if (!(step > 0.0F)) {
+            throw new IllegalArgumentException("Step=[" + step);
+        }
+        return scaleFactor -> Math.max(1, Math.round(scaleFactor / step)) * step;
+    }
+    
+    /**
+     * Genera una politica que ajusta los factores al nivel mas cercano de
+     * una lista fija (por ejemplo niveles de DPI: 1, 1.25, 1.5, 2).
+     * 
+     * @param tiers niveles disponibles.
+     * @return Un ScaleQuantizer como valor.
+     */
+    static ScaleQuantizer tiers(@Nonnull float... tiers) {
+        if (tiers.length == 0) {
+            throw new IllegalArgumentException("Tiers=[" + Arrays.toString(tiers));
+        }
+        
+        final float[] sorted = tiers.clone();
+        Arrays.sort(sorted);
+        return scaleFactor -> {
+            int i = Arrays.binarySearch(sorted, scaleFactor);
+            if (i >= 0)
+                return sorted[i];
+            
+            i = -i - 1;
+            if (i == 0)
+                return sorted[0];
+            if (i == sorted.length)
+                return sorted[sorted.length - 1];
+            return scaleFactor - sorted[i - 1] <= sorted[i] - scaleFactor 
+                    ? sorted[i - 1] : sorted[i];
+        };
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui;
+
+import com.jme3.app.Application;
+import com.jme3.system.AppSettings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * Un <code>ScaleService</code> es la fuente de escalado compartida por
+ * varios {@link RootPane} (pantalla dividida, capas de depuracion,
+ * monitores dentro del mundo, ...): lee la resolucion una sola vez por
+ * cambio y calcula los factores de escala una vez por cada combinacion de
+ * dimensiones y {@link ScaleQuantizer}, de modo que los contenedores
+ * iguales comparten el mismo {@link ScaleContext}.
+ * <p>
+ * Los contenedores se suscriben con una prioridad; los reinicios
+ * ({@link #relayout()} o un {@link ResizeState} con este servicio) se
+ * aplican en orden de prioridad, de mayor a menor, y en orden de
+ * suscripcion entre los de igual prioridad.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public class ScaleService {
+    
+    /**
+     * Suscripcion de un contenedor raiz.
+     */
+    private static final class Subscription {
+        final RootPane root;
+        final int priority;
+        Subscription(RootPane root, int priority) {
+            this.root = root;
+            this.priority = priority;
+        }
+    }
+    
+    /**
+     * Contexto compartido por los contenedores con las mismas dimensiones
+     * y la misma politica de ajuste, con el numero de contenedores que lo
+     * utilizan.
+     */
+    private static final class SharedContext {
+        final ScaleContext context = new ScaleContext();
+        final float width, height;
+        final ScaleQuantizer quantizer;
+        int users;
+        SharedContext(float width, float height, ScaleQuantizer quantizer) {
+            this.width = width;
+            this.height = height;
+            this.quantizer = quantizer;
+            this.context.setQuantizer(quantizer);
+        }
+    }
+    
+    /** Suscripciones, en orden de prioridad. */
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    
+    /** Contextos compartidos. */
+    private final List<SharedContext> contexts = new ArrayList<>();
+    
+    /*
+        Resolucion actual de la pantalla.
+    */
+    private float appWidth  = AppSize.MIN_WIDTH, 
+                  appHeight = AppSize.MIN_HEIGHT;
+
+    /**
+     * Genera un nuevo <code>ScaleService</code> con la resolucion minima.
+     */
+    public ScaleService() {
+    }
+    
+    /**
+     * Suscribe un contenedor raiz, si ya estaba suscrito se actualiza su
+     * prioridad.
+     * 
+     * @param root contenedor raiz.
+     * @param priority prioridad del reinicio, mayor primero.
+     */
+    public void subscribe(@Nonnull RootPane root, int priority) {
+        final ScaleService previous = root.getScaleService();
+        if (previous != null && previous != this) {
+            previous.unsubscribe(root);
+        }
+        remove(root);
+        
+        int index = subscriptions.size();
+        while (index > 0 && subscriptions.get(index - 1).priority < priority) {
+            index--;
+        }
+        subscriptions.add(index, new Subscription(root, priority));
+        root.setScaleService(this);
+    }
+    
+    /**
+     * Cancela la suscripcion de un contenedor raiz, vuelve a utilizar su
+     * propio contexto de escalado.
+     * @param root contenedor raiz.
+     */
+    public void unsubscribe(RootPane root) {
+        if (remove(root)) {
+            root.setScaleService(null);
+        }
+    }
+    
+    private boolean remove(RootPane root) {
+        for (int i = 0; i < subscriptions.size(); i++) {
+            if (subscriptions.get(i).root == root) {
+                subscriptions.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Devuelve los contenedores suscritos en orden de prioridad.
+     * @return Lista de solo lectura.
+     */
+    public List<RootPane> getRootPanes() {
+        final List<RootPane> roots = new ArrayList<>(subscriptions.size());
+        for (final Subscription s : subscriptions) {
+            roots.add(s.root);
+        }
+        return Collections.unmodifiableList(roots);
+    }
+    
+    /*
+        Contenedores suscritos por indice, en orden de prioridad.
+    */
+    int size() {
+        return subscriptions.size();
+    }
+    RootPane rootAt(int index) {
+        return subscriptions.get(index).root;
+    }
+    
+    /**
+     * Devuelve la prioridad de un contenedor suscrito.
+     * @param root contenedor raiz.
+     * @return Prioridad del contenedor.
+     */
+    public int getPriority(RootPane root) {
+        for (final Subscription s : subscriptions) {
+            if (s.root == root) {
+                return s.priority;
+            }
+        }
+        throw new IllegalArgumentException("RootPane=[" + root);
+    }
+    
+    /**
+     * Establece la resolucion de la pantalla; los contextos compartidos se
+     * actualizan una sola vez cada uno.
+     * 
+     * @param appWidth largo de la pantalla.
+     * @param appHeight ancho de la pantalla.
+     * @return {@code true} si la resolucion cambio.
+     */
+    public boolean setResolution(float appWidth, float appHeight) {
+        if (!(appWidth > 0.0F) || Float.isInfinite(appWidth))
+            throw new IllegalArgumentException("AppWidth=[" + appWidth);
+        if (!(appHeight > 0.0F) || Float.isInfinite(appHeight))
+            throw new IllegalArgumentException("AppHeight=[" + appHeight);
+        
+        if (appWidth == this.appWidth && appHeight == this.appHeight)
+            return false;
+        
+        this.appWidth  = appWidth;
+        this.appHeight = appHeight;
+        for (final SharedContext shared : contexts) {
+            shared.context.update(appWidth, appHeight, shared.width, shared.height);
+        }
+        return true;
+    }
+    
+    /**
+     * Lee la resolucion de la configuracion de la aplicacion.
+     * @param app aplicacion.
+     * @return {@code true} si la resolucion cambio.
+     */
+    public boolean refresh(@Nonnull Application app) {
+        if (app.getContext() == null)
+            return false;
+        
+        final AppSettings settings = app.getContext().getSettings();
+        return setResolution(settings.getWidth(), settings.getHeight());
+    }
+    
+    /**
+     * Reinicia el diseño de todos los contenedores suscritos, en orden de
+     * prioridad.
+     */
+    public void relayout() {
+        for (int i = 0; i < subscriptions.size(); i++) {
+            subscriptions.get(i).root.restart();
+        }
+    }
+    
+    /**
+     * Obtiene el contexto compartido de un contenedor, segun sus
+     * dimensiones y su politica de ajuste; solo se calcula si no existe
+     * uno igual. El contenedor lo guarda hasta que cambian sus dimensiones
+     * o su politica y entonces lo libera con {@link #release(ScaleContext)}.
+     * 
+     * @param width largo del contenedor.
+     * @param height ancho del contenedor.
+     * @param quantizer politica de ajuste, o <code>null</code>.
+     * @return Un ScaleContext como valor.
+     */
+    ScaleContext acquire(float width, float height, ScaleQuantizer quantizer) {
+        for (int i = 0, n = contexts.size(); i < n; i++) {
+            final SharedContext shared = contexts.get(i);
+            if (shared.width == width && shared.height == height 
+                    && shared.quantizer == quantizer) {
+                shared.users++;
+                return shared.context;
+            }
+        }
+        
+        final SharedContext shared = new SharedContext(width, height, quantizer);
+        shared.context.update(appWidth, appHeight, width, height);
+        shared.users = 1;
+        contexts.add(shared);
+        return shared.context;
+    }
+    
+    /**
+     * Libera un contexto obtenido con {@link #acquire(float, float, ScaleQuantizer)};
+     * se descarta cuando ya no lo utiliza ningun contenedor.
+     * @param context contexto compartido.
+     */
+    void release(ScaleContext context) {
+        for (int i = 0, n = contexts.size(); i < n; i++) {
+            final SharedContext shared = contexts.get(i);
+            if (shared.context == context) {
+                if (--shared.users <= 0) {
+                    contexts.remove(i);
+                }
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Numero de contextos compartidos (calculos distintos por cambio de
+     * resolucion).
+     * @return Un int como valor.
+     */
+    public int getContextCount() {
+        return contexts.size();
+    }
+    
+    /**
+     * Devuelve la resolucion actual.
+     * @return Un nuevo AppSize como valor.
+     */
+    public AppSize getAppSize() {
+        return new AppSize(appWidth, appHeight);
+    }
+
+    public float getAppWidth() {
+        return appWidth;
+    }
+
+    public float getAppHeight() {
+        return appHeight;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+/**
+ * Un <code>Anchor</code> es un punto de anclaje normalizado dentro del
+ * contenedor padre; cada {@link Dock} tiene el suyo, pero tambien se
+ * pueden declarar anclajes personalizados, por ejemplo {@code (0.25, 0.75)}.
+ * <p>
+ * Las coordenadas normalizadas van de {@code (0, 0)} (esquina inferior
+ * izquierda) a {@code (1, 1)} (esquina superior derecha). A partir de ellas
+ * se precalculan los coeficientes del anclaje en el padre, del pivote en el
+ * componente y la direccion en la que se desplaza el componente, de modo
+ * que la posicion de cada eje se resuelve con una sola multiplicacion y
+ * suma, sin ramificaciones.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class Anchor {
+    
+    /** Coordenadas normalizadas del anclaje. */
+    private final float x, y;
+    
+    /** Coordenadas normalizadas del pivote del componente. */
+    private final float pivotX, pivotY;
+    
+    /*
+        Coeficientes precalculados: posicion del anclaje y del pivote
+        relativas al centro, y direccion del desplazamiento.
+    */
+    private final float anchorX, anchorY;
+    private final float pivotCoefX, pivotCoefY;
+    private final float directionX, directionY;
+
+    /*
+        Constructor de la clase, usar los metodos 'of'.
+    */
+    private Anchor(float x, float y, float pivotX, float pivotY) {
+        this.x = x;
+        this.y = y;
+        this.pivotX = pivotX;
+        this.pivotY = pivotY;
+        
+        this.anchorX = x - 0.5F;
+        this.anchorY = y - 0.5F;
+        this.pivotCoefX = pivotX - 0.5F;
+        this.pivotCoefY = pivotY - 0.5F;
+        
+        // A partir de la mitad del padre, el desplazamiento se
+        // aplica desde el borde opuesto hacia el interior.
+        this.directionX = x > 0.5F ? -1.0F : 1.0F;
+        this.directionY = y > 0.5F ? -1.0F : 1.0F;
+    }
+    
+    /**
+     * Genera un anclaje normalizado en donde el pivote del componente
+     * coincide con el punto de anclaje.
+     * 
+     * @param x posicion normalizada en {@code x} ({@code 0} izquierda, 
+     *          {@code 1} derecha).
+     * @param y posicion normalizada en {@code y} ({@code 0} abajo,
+     *          {@code 1} arriba).
+     * @return Un nuevo anclaje.
+     */
+    public static Anchor of(float x, float y) {
+        return of(x, y, x, y);
+    }
+    
+    /**
+     * Genera un anclaje normalizado con un pivote independiente.
+     * 
+     * @param x posicion normalizada del anclaje en {@code x}.
+     * @param y posicion normalizada del anclaje en {@code y}.
+     * @param pivotX posicion normalizada del pivote en {@code x}.
+     * @param pivotY posicion normalizada del pivote en {@code y}.
+     * @return Un nuevo anclaje.
+     */
+    public static Anchor of(float x, float y, float pivotX, float pivotY) {
+        if (!Float.isFinite(x) || !Float.isFinite(y)
+                || !Float.isFinite(pivotX) || !Float.isFinite(pivotY))
+            throw new IllegalArgumentException("Anchor=[" + x + ", " + y + ", " + pivotX + ", " + pivotY);
+        
+        return new Anchor(x, y, pivotX, pivotY);
+    }
+    
+    /**
+     * Resuelve la posicion en {@code x} del centro del componente, relativa
+     * al centro del padre.
+     * 
+     * @param parentWidth largo del padre.
+     * @param width largo del componente.
+     * @param offset desplazamiento ya escalado.
+     * @return Posicion en {@code x}.
+     */
+    public float resolveX(float parentWidth, float width, float offset) {
+        return anchorX * parentWidth - pivotCoefX * width + directionX * offset;
+    }
+    
+    /**
+     * Resuelve la posicion en {@code y} del centro del componente, relativa
+     * al centro del padre.
+     * 
+     * @param parentHeight ancho del padre.
+     * @param height ancho del componente.
+     * @param offset desplazamiento ya escalado.
+     * @return Posicion en {@code y}.
+     */
+    public float resolveY(float parentHeight, float height, float offset) {
+        return anchorY * parentHeight - pivotCoefY * height + directionY * offset;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 37 * hash + Float.floatToIntBits(this.x);
+        hash = 37 * hash + Float.floatToIntBits(this.y);
+        hash = 37 * hash + Float.floatToIntBits(this.pivotX);
+        hash = 37 * hash + Float.floatToIntBits(this.pivotY);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Anchor other = (Anchor) obj;
+        return Float.floatToIntBits(this.x) == Float.floatToIntBits(other.x)
+                && Float.floatToIntBits(this.y) == Float.floatToIntBits(other.y)
+                && Float.floatToIntBits(this.pivotX) == Float.floatToIntBits(other.pivotX)
+                && Float.floatToIntBits(this.pivotY) == Float.floatToIntBits(other.pivotY);
+    }
+
+    @Override
+    public String toString() {
+        return "Anchor{" + "x=" + x + ", y=" + y + ", pivotX=" + pivotX + ", pivotY=" + pivotY + '}';
+    }
+    
+    // Getters.
+    public float getX()          { return x; }
+    public float getY()          { return y; }
+    public float getPivotX()     { return pivotX; }
+    public float getPivotY()     { return pivotY; }
+    public float getAnchorX()    { return anchorX; }
+    public float getAnchorY()    { return anchorY; }
+    public float getDirectionX() { return directionX; }
+    public float getDirectionY() { return directionY; }
+}
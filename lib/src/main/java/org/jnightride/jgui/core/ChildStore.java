@@ -0,0 +1,220 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.scene.Node;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Un <code>ChildStore</code> es el almacenamiento de los hijos de un
+ * {@link DynamicLayout}: conserva el orden de insercion y asigna a cada
+ * hijo una ranura que su {@link DockControl} guarda en cache.
+ * <p>
+ * Agregar y eliminar son O(1): al eliminar, la ranura queda vacia (lapida)
+ * y los recorridos la omiten; cuando las lapidas superan la mitad de las
+ * ranuras, el almacenamiento se compacta conservando el orden y
+ * renumerando las ranuras.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+final class ChildStore {
+    
+    /** Capacidad inicial de los arreglos. */
+    private static final int INITIAL_CAPACITY = 8;
+    
+    /*
+        Nodos y controles de cada ranura, una ranura vacia es una lapida.
+    */
+    private Node[] nodes = new Node[INITIAL_CAPACITY];
+    private DockControl[] controls = new DockControl[INITIAL_CAPACITY];
+    
+    /*
+        Ranuras utilizadas (incluidas las lapidas) y numero de hijos.
+    */
+    private int slots;
+    private int count;
+    
+    /*
+        Vista de solo lectura de los controles, valida mientras el
+        almacenamiento no se modifique (ver controls()).
+    */
+    private final List<DockControl> controlView = new AbstractList<DockControl>() {
+        @Override public DockControl get(int index) { return controls[checkIndex(index)]; }
+        @Override public int size() { return count; }
+    };
+
+    /*
+        Constructor de la clase.
+    */
+    ChildStore() {
+    }
+    
+    /*
+        Agrega un hijo al final, devuelve su ranura.
+    */
+    int add(Node node, DockControl dc) {
+        if (slots == nodes.length) {
+            if (count < slots) {
+                compact();
+            } else {
+                nodes    = Arrays.copyOf(nodes, slots * 2);
+                controls = Arrays.copyOf(controls, slots * 2);
+            }
+        }
+        
+        final int slot = slots++;
+        nodes[slot]    = node;
+        controls[slot] = dc;
+        dc.childSlot   = slot;
+        count++;
+        return slot;
+    }
+    
+    /*
+        Elimina un hijo, devuelve su control o null si no pertenece al
+        almacenamiento.
+    */
+    DockControl remove(Node node) {
+        final int slot = indexOf(node);
+        if (slot < 0)
+            return null;
+        
+        final DockControl dc = controls[slot];
+        nodes[slot]    = null;
+        controls[slot] = null;
+        if (dc.childSlot == slot) {
+            dc.childSlot = -1;
+        }
+        count--;
+        
+        if (slot == slots - 1) {
+            slots--;
+        } else if ((slots - count) * 2 > slots) {
+            compact();
+        }
+        return dc;
+    }
+    
+    /*
+        Ranura de un hijo, -1 si no pertenece al almacenamiento. Se
+        resuelve con la ranura en cache del control.
+    */
+    int indexOf(Node node) {
+        if (node == null)
+            return -1;
+        
+        final DockControl dc = node.getControl(DockControl.class);
+        if (dc == null)
+            return -1;
+        
+        final int slot = dc.childSlot;
+        if (slot < 0)
+            return -1;
+        if (slot < slots && nodes[slot] == node)
+            return slot;
+        
+        // El control se agrego a otro layout sin quitarlo de este.
+        for (int i = 0; i < slots; i++) {
+            if (nodes[i] == node) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    boolean contains(Node node) {
+        return indexOf(node) >= 0;
+    }
+    
+    /*
+        Elimina todos los hijos.
+    */
+    void clear() {
+        for (int i = 0; i < slots; i++) {
+            if (controls[i] != null) {
+                controls[i].childSlot = -1;
+            }
+        }
+        Arrays.fill(nodes, 0, slots, null);
+        Arrays.fill(controls, 0, slots, null);
+        slots = 0;
+        count = 0;
+    }
+    
+    /*
+        Elimina las lapidas conservando el orden de insercion.
+    */
+    void compact() {
+        if (count == slots)
+            return;
+        
+        int j = 0;
+        for (int i = 0; i < slots; i++) {
+            final DockControl dc = controls[i];
+            if (dc == null)
+                continue;
+            
+            nodes[j]    = nodes[i];
+            controls[j] = dc;
+            dc.childSlot = j++;
+        }
+        Arrays.fill(nodes, j, slots, null);
+        Arrays.fill(controls, j, slots, null);
+        slots = j;
+    }
+    
+    /*
+        Recorrido directo por ranuras: 'slots()' incluye las lapidas, para
+        las que 'controlAt' y 'nodeAt' devuelven null.
+    */
+    int slots()                     { return slots; }
+    int size()                      { return count; }
+    Node nodeAt(int slot)           { return nodes[slot]; }
+    DockControl controlAt(int slot) { return controls[slot]; }
+    
+    /*
+        Copia de los nodos en orden de insercion, no cambia si despues se
+        agregan o eliminan hijos.
+    */
+    List<Node> nodes() {
+        compact();
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(nodes, count)));
+    }
+    
+    /*
+        Vista de los controles en orden de insercion, se compacta antes de
+        devolverla; solo para recorridos internos que no modifican los
+        hijos.
+    */
+    List<DockControl> controls() {
+        compact();
+        return controlView;
+    }
+    
+    private int checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index=[" + index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.jnightride.jgui.ScaleContext;
+
+/**
+ * Un <code>ConstraintSolver</code> ordena los hijos de un
+ * {@link DynamicLayout} con restricciones ({@link DockConstraints}) de
+ * modo que cada componente se calcule despues de los hermanos con los que
+ * se alinea; sin alineaciones, el orden es el de insercion.
+ * <p>
+ * El orden se guarda en cache y solo se vuelve a generar cuando cambian
+ * los hijos o las alineaciones. Durante una pasada incremental, el layout
+ * vuelve a resolver un componente solo si esta sucio o si alguno de sus
+ * hermanos de referencia cambio su resultado en la misma pasada.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+final class ConstraintSolver {
+    
+    /** Controles en orden de resolucion. */
+    private DockControl[] order = new DockControl[8];
+    private int size;
+    
+    /** Determina si el orden se debe volver a generar. */
+    private boolean dirty = true;
+    
+    /** Resultado previo al calculo, para detectar cambios. */
+    private final LayoutResult previous = new LayoutResult();
+    
+    /** Vista de solo lectura del orden. */
+    private final List<DockControl> view = new AbstractList<DockControl>() {
+        @Override
+        public DockControl get(int index) {
+            if (index >= size)
+                throw new IndexOutOfBoundsException("Index=[" + index);
+            return order[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+    
+    /**
+     * Marca el orden para volver a generarlo.
+     */
+    void invalidate() {
+        dirty = true;
+    }
+    
+    /**
+     * Devuelve los controles de los hijos en orden de resolucion.
+     * @param children hijos del layout.
+     * @return Lista de solo lectura.
+     */
+    List<DockControl> order(ChildStore children) {
+        if (dirty) {
+            rebuild(children);
+            dirty = false;
+        }
+        return view;
+    }
+    
+    /*
+        Recorrido en profundidad: primero los hermanos de referencia, luego
+        el propio control, respetando el orden de insercion.
+    */
+    private void rebuild(ChildStore children) {
+        if (order.length < children.size()) {
+            order = new DockControl[children.size()];
+        }
+        Arrays.fill(order, null);
+        size = 0;
+        
+        final Set<DockControl> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0, n = children.slots(); i < n; i++) {
+            final DockControl dc = children.controlAt(i);
+            if (dc != null) {
+                visit(dc, children, visited);
+            }
+        }
+    }
+    
+    private void visit(DockControl dc, ChildStore children, Set<DockControl> visited) {
+        if (!visited.add(dc))
+            return;
+        
+        final DockConstraints c = dc.constraints();
+        if (c != null) {
+            visitSibling(c.getSiblingX(), children, visited);
+            visitSibling(c.getSiblingY(), children, visited);
+        }
+        order[size++] = dc;
+    }
+    
+    private void visitSibling(DockControl sibling, ChildStore children, Set<DockControl> visited) {
+        if (sibling != null && children.contains(sibling.getManagedNode())) {
+            visit(sibling, children, visited);
+        }
+    }
+    
+    /**
+     * Calcula un control y registra si su resultado cambio, para que los
+     * hermanos que dependen de el se vuelvan a resolver.
+     * 
+     * @param dc control a calcular.
+     * @param context contexto de escalado.
+     */
+    void compute(DockControl dc, ScaleContext context) {
+        previous.set(dc.getLayoutResult());
+        dc.computeLayout(context);
+        dc.resultChanged = !previous.sameAs(dc.getLayoutResult());
+    }
+}
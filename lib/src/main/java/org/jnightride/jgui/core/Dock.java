@@ -18,17 +18,39 @@ package org.jnightride.jgui.core;
 /**
  * Un <code>Dock</code> es el que determina la posicion donde el
  * componetes se localiza.
+ * <p>
+ * Cada constante tiene un {@link Anchor} precalculado; si se necesita un
+ * punto distinto a los nueve predefinidos, se puede usar un anclaje
+ * personalizado con {@link Anchor#of(float, float)}.
  * 
  * @author wil
  */
 public enum Dock {
     
     // [ Dock ] :Centrado en el contenedor padre.
-    Center, CenterTop, CenterBottom,
+    Center(0.5F, 0.5F), CenterTop(0.5F, 1.0F), CenterBottom(0.5F, 0.0F),
     
     // [ Dock ] :Centrado en la derecha.
-    RightCenter, RightTop, RightBottom,
+    RightCenter(1.0F, 0.5F), RightTop(1.0F, 1.0F), RightBottom(1.0F, 0.0F),
     
     // [ Dock ] :Centrado en la izquierda
-    LeftCenter, LeftTop, LeftBottom;
+    LeftCenter(0.0F, 0.5F), LeftTop(0.0F, 1.0F), LeftBottom(0.0F, 0.0F);
+    
+    /** Anclaje normalizado de esta posicion. */
+    private final Anchor anchor;
+
+    /*
+        Constructor del enum.
+    */
+    private Dock(float x, float y) {
+        this.anchor = Anchor.of(x, y);
+    }
+
+    /**
+     * Devuelve el anclaje precalculado de esta posicion.
+     * @return Un Anchor como valor.
+     */
+    public Anchor getAnchor() {
+        return anchor;
+    }
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Un <code>DockConstraints</code> agrega restricciones al diseño de un
+ * {@link DockControl}: dimensiones relativas al padre, limites minimos y
+ * maximos, y la alineacion de sus bordes con los de un hermano.
+ * <p>
+ * Las restricciones se resuelven durante la fase de calculo, despues del
+ * {@link DockStyle}: las dimensiones relativas sustituyen a las del
+ * estilo, los limites (sin escalar) se escalan igual que las dimensiones y
+ * la alineacion sustituye la posicion en su eje. El {@link DynamicLayout}
+ * calcula los hermanos de los que depende un componente antes que el y,
+ * en las pasadas incrementales, solo vuelve a resolver los componentes
+ * sucios o aquellos cuyo hermano de referencia cambio.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class DockConstraints {
+    
+    /** Control al que pertenecen las restricciones. */
+    private final DockControl control;
+    
+    /*
+        Dimensiones relativas al padre (fraccion), NaN si no se utilizan.
+    */
+    private float relativeWidth  = Float.NaN, 
+                  relativeHeight = Float.NaN;
+    
+    /*
+        Limites de las dimensiones sin escalar, NaN si no se utilizan.
+    */
+    private float minWidth = Float.NaN, minHeight = Float.NaN,
+                  maxWidth = Float.NaN, maxHeight = Float.NaN;
+    
+    /*
+        Alineacion horizontal: borde propio, hermano, borde del hermano y
+        desplazamiento sin escalar.
+    */
+    private Edge edgeX, siblingEdgeX;
+    private DockControl siblingX;
+    private float offsetX;
+    
+    /*
+        Alineacion vertical.
+    */
+    private Edge edgeY, siblingEdgeY;
+    private DockControl siblingY;
+    private float offsetY;
+
+    /*
+        Constructor de la clase.
+    */
+    DockConstraints(DockControl control) {
+        this.control = control;
+    }
+    
+    /**
+     * Establece las dimensiones relativas a las del padre.
+     * @param width fraccion del largo del padre, {@code NaN} para utilizar
+     *                  la del estilo.
+     * @param height fraccion del ancho del padre, {@code NaN} para utilizar
+     *                  la del estilo.
+     */
+    public void setRelativeSize(float width, float height) {
+        if (width < 0.0F || Float.isInfinite(width))
+            throw new IllegalArgumentException("RelativeWidth=[" + width);
+        if (height < 0.0F || Float.isInfinite(height))
+            throw new IllegalArgumentException("RelativeHeight=[" + height);
+        
+        this.relativeWidth  = width;
+        this.relativeHeight = height;
+        control.constraintsChanged(false);
+    }
+    
+    /**
+     * Establece las dimensiones minimas (sin escalar).
+     * @param width largo minimo, {@code NaN} para no limitarlo.
+     * @param height ancho minimo, {@code NaN} para no limitarlo.
+     */
+    public void setMinSize(float width, float height) {
+        this.minWidth  = width;
+        this.minHeight = height;
+        control.constraintsChanged(false);
+    }
+    
+    /**
+     * Establece las dimensiones maximas (sin escalar).
+     * @param width largo maximo, {@code NaN} para no limitarlo.
+     * @param height ancho maximo, {@code NaN} para no limitarlo.
+     */
+    public void setMaxSize(float width, float height) {
+        this.maxWidth  = width;
+        this.maxHeight = height;
+        control.constraintsChanged(false);
+    }
+    
+    /**
+     * Alinea un borde de este componente con el borde de un hermano (un
+     * componente del mismo layout), sustituye la alineacion que hubiera
+     * en ese eje.
+     * 
+     * @param edge borde de este componente.
+     * @param sibling hermano de referencia.
+     * @param siblingEdge borde del hermano, del mismo eje.
+     * @param offset desplazamiento sin escalar.
+     */
+    public void align(@Nonnull Edge edge, @Nonnull DockControl sibling, @Nonnull Edge siblingEdge, float offset) {
+        if (edge.isHorizontal() != siblingEdge.isHorizontal())
+            throw new IllegalArgumentException("SiblingEdge=[" + siblingEdge);
+        if (sibling == control || dependsOn(sibling, control))
+            throw new IllegalArgumentException("Cycle=[" + sibling);
+        
+        if (edge.isHorizontal()) {
+            edgeX = edge;
+            siblingX = sibling;
+            siblingEdgeX = siblingEdge;
+            offsetX = offset;
+        } else {
+            edgeY = edge;
+            siblingY = sibling;
+            siblingEdgeY = siblingEdge;
+            offsetY = offset;
+        }
+        control.constraintsChanged(true);
+    }
+    
+    /**
+     * Elimina las alineaciones con los hermanos.
+     */
+    public void clearAlignment() {
+        if (siblingX == null && siblingY == null)
+            return;
+        
+        edgeX = edgeY = siblingEdgeX = siblingEdgeY = null;
+        siblingX = siblingY = null;
+        offsetX = offsetY = 0.0F;
+        control.constraintsChanged(true);
+    }
+    
+    /**
+     * Elimina todas las restricciones.
+     */
+    public void clear() {
+        relativeWidth = relativeHeight = Float.NaN;
+        minWidth = minHeight = maxWidth = maxHeight = Float.NaN;
+        clearAlignment();
+        control.constraintsChanged(false);
+    }
+    
+    /*
+        Determina si 'from' depende (directa o indirectamente) de 'to'.
+    */
+    private static boolean dependsOn(DockControl from, DockControl to) {
+        final DockConstraints c = from.constraints();
+        if (c == null)
+            return false;
+        
+        return c.siblingX == to || c.siblingY == to
+                || (c.siblingX != null && dependsOn(c.siblingX, to))
+                || (c.siblingY != null && dependsOn(c.siblingY, to));
+    }
+    
+    /*
+        Largo resuelto: relativo al padre o el del estilo ya escalado, 
+        limitado por los minimos y maximos escalados.
+    */
+    float resolveWidth(float width, float parentWidth, float scale) {
+        if (!Float.isNaN(relativeWidth)) {
+            width = relativeWidth * parentWidth;
+        }
+        return clamp(width, minWidth * scale, maxWidth * scale);
+    }
+    
+    /*
+        Ancho resuelto.
+    */
+    float resolveHeight(float height, float parentHeight, float scale) {
+        if (!Float.isNaN(relativeHeight)) {
+            height = relativeHeight * parentHeight;
+        }
+        return clamp(height, minHeight * scale, maxHeight * scale);
+    }
+    
+    /*
+        Limita un valor, los limites NaN se ignoran.
+    */
+    private static float clamp(float value, float min, float max) {
+        if (value < min) {
+            value = min;
+        }
+        if (value > max) {
+            value = max;
+        }
+        return value;
+    }
+    
+    /*
+        Sustituye la posicion del resultado segun la alineacion con los
+        hermanos, que ya fueron calculados en esta pasada.
+    */
+    void align(LayoutResult result, float scaleX, float scaleY) {
+        if (siblingX != null && control.isSibling(siblingX)) {
+            final LayoutResult r = siblingX.getLayoutResult();
+            result.x = edgeX.positionOf(siblingEdgeX.of(r.x, r.width) + offsetX * scaleX, result.width);
+        }
+        if (siblingY != null && control.isSibling(siblingY)) {
+            final LayoutResult r = siblingY.getLayoutResult();
+            result.y = edgeY.positionOf(siblingEdgeY.of(r.y, r.height) + offsetY * scaleY, result.height);
+        }
+    }
+    
+    /*
+        Determina si alguno de los hermanos de referencia cambio en la
+        pasada en curso.
+    */
+    boolean isSiblingChanged() {
+        return (siblingX != null && siblingX.resultChanged)
+                || (siblingY != null && siblingY.resultChanged);
+    }
+    
+    /**
+     * Determina si hay alguna alineacion con un hermano.
+     * @return Un valor booleano.
+     */
+    public boolean hasAlignment() {
+        return siblingX != null || siblingY != null;
+    }
+    
+    // Getters.
+    public float getRelativeWidth()  { return relativeWidth; }
+    public float getRelativeHeight() { return relativeHeight; }
+    public float getMinWidth()       { return minWidth; }
+    public float getMinHeight()      { return minHeight; }
+    public float getMaxWidth()       { return maxWidth; }
+    public float getMaxHeight()      { return maxHeight; }
+    public DockControl getSiblingX() { return siblingX; }
+    public DockControl getSiblingY() { return siblingY; }
+    public Edge getEdgeX()           { return edgeX; }
+    public Edge getEdgeY()           { return edgeY; }
+    public Edge getSiblingEdgeX()    { return siblingEdgeX; }
+    public Edge getSiblingEdgeY()    { return siblingEdgeY; }
+    public float getOffsetX()        { return offsetX; }
+    public float getOffsetY()        { return offsetY; }
+    public DockControl getControl()  { return control; }
+}
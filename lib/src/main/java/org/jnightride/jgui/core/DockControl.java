@@ -15,6 +15,7 @@
  */
 package org.jnightride.jgui.core;
 
+import com.jme3.font.BitmapFont;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
@@ -26,6 +27,7 @@ import com.simsilica.lemur.core.GuiControl;
 
 import javax.annotation.Nonnull;
 import org.jnightride.jgui.Scalable;
+import org.jnightride.jgui.ScaleContext;
 
 /**
  * Un <code>DockControl</code> es la clase encargado de controlar el escalado
@@ -39,6 +41,19 @@ import org.jnightride.jgui.Scalable;
  */
 @SuppressWarnings(value = {"unchecked"})
 public class DockControl extends AbstractNodeControl<DockControl> {
+    
+    /**
+     * Interfaz encargada de recibir el final de las animaciones de un
+     * {@code DockControl}.
+     */
+    public static interface AnimationListener {
+        
+        /**
+         * Se invoca cuando todos los canales animados llegan a su destino.
+         * @param control control animado.
+         */
+        void animationCompleted(DockControl control);
+    }
 
     /*
         Atributos de la clase control.
@@ -47,6 +62,80 @@ public class DockControl extends AbstractNodeControl<DockControl> {
     private DockStyle dockStyle;
     private DockControl parent;    
 
+    /*
+        Estado del ultimo calculo del diseño: si el control quedo marcado
+        como sucio y con que version del estilo y del contexto de escalado
+        se resolvio por ultima vez.
+    */
+    private boolean layoutDirty = true;
+    private int styleVersion;
+    private ScaleContext scaleContext;
+    private long scaleVersion;
+    
+    /*
+        Diseño resuelto y vector temporal reutilizados en cada
+        actualizacion, evitan generar basura durante el calculo.
+    */
+    private final LayoutResult result = new LayoutResult();
+    private final Vector3f tmpSize = new Vector3f();
+    
+    /** Diseños resueltos por intervalo de escala, solo con factores ajustados. */
+    private LayoutCache layoutCache;
+    
+    /*
+        Dimensiones preferidas sincronizadas desde el componente; se guardan
+        aqui y no en el estilo, que puede estar compartido (ver
+        DockStyle#intern()).
+    */
+    private final Vector3f layoutSize = new Vector3f();
+    private boolean layoutSizeSynced;
+    
+    /** Ranura del control en un {@link PackedLayout}, {@code -1} si no tiene. */
+    int packedSlot = -1;
+    
+    /** Ranura del control en los hijos de su layout, {@code -1} si no tiene. */
+    int childSlot = -1;
+    
+    /*
+        Ranura del control en el SpatialIndex del contenedor raiz y si
+        esta pendiente de volver a leer su rectangulo.
+    */
+    int indexSlot = -1;
+    boolean indexDirty;
+    
+    /*
+        Recorte automatico: el componente quedo fuera de la pantalla y se
+        oculto, se guarda la indicacion de recorte que tenia.
+    */
+    private boolean autoCulled;
+    private Spatial.CullHint culledHint;
+    
+    /*
+        Tamaño de la fuente sin escalar (NaN si no se establecio) y
+        contexto con el que se aplico por ultima vez.
+    */
+    private float fontSize = Float.NaN;
+    private ScaleContext fontContext;
+    private long fontScaleVersion;
+    
+    /*
+        Estado de las animaciones (se genera con la primera) y su oyente.
+    */
+    private DockTween tween;
+    private AnimationListener animationListener;
+    
+    /** El resultado fue calculado y falta aplicarlo sobre el nodo. */
+    boolean applyPending;
+    
+    /** Hijo aplazado que gestiona este control hasta materializarse. */
+    LazyChild lazy;
+    
+    /** Restricciones del diseño, se generan con la primera consulta. */
+    private DockConstraints constraints;
+    
+    /** El resultado cambio en la pasada en curso (ver ConstraintSolver). */
+    boolean resultChanged;
+
     /*
         Constructor de la clase.
     */
@@ -64,6 +153,17 @@ public class DockControl extends AbstractNodeControl<DockControl> {
      *                  de lo contrario {@code false} para que no se visualize.
      */
     public void setVisible(boolean visible) {
+        if (visible && lazy != null) {
+            // Primera vez que se muestra un hijo aplazado.
+            lazy.realize();
+        }
+        if (visible && autoCulled) {
+            // Lo mostramos aunque este fuera de la pantalla, la siguiente
+            // pasada decide si se vuelve a recortar.
+            autoCulled = false;
+            culledHint = null;
+        }
+        
         if (visible && 
                 spatial.getCullHint().equals(Spatial.CullHint.Always)) {
             spatial.setCullHint(Spatial.CullHint.Never);
@@ -71,6 +171,21 @@ public class DockControl extends AbstractNodeControl<DockControl> {
                     && spatial.getCullHint().equals(Spatial.CullHint.Never)) {
             spatial.setCullHint(Spatial.CullHint.Always);
         }
+        
+        // Diseño aplazado mientras estaba oculto.
+        DynamicLayout<?> layout = DynamicLayout.layoutOf(getManagedNode());
+        if (visible && layout != null && layout.isLayoutDeferred()) {
+            layout.restart();
+        }
+    }
+    
+    /**
+     * Determina si el componente es un hijo aplazado que todavia no se
+     * agrego al grafo de escena.
+     * @return Un valor booleano.
+     */
+    public boolean isDeferred() {
+        return lazy != null;
     }
     
     /**
@@ -91,6 +206,13 @@ public class DockControl extends AbstractNodeControl<DockControl> {
         return (E) getSpatial();
     }
 
+    /*
+        Nodo gestionado por este control, para uso interno del paquete.
+    */
+    Node getManagedNode() {
+        return (Node) spatial;
+    }
+
     /**
      * Devuelve el contenedor raiz principal de la pantalla.
      * @return Contenedor principal de la interfaz grafica.
@@ -109,7 +231,9 @@ public class DockControl extends AbstractNodeControl<DockControl> {
     }
 
     /**
-     * Devuelve los datos de estilo del componente.
+     * Devuelve los datos de estilo del componente. Las dimensiones del
+     * estilo son las iniciales, las que se utilizan en el diseño se
+     * obtienen con {@link #getLayoutWidth()} y {@link #getLayoutHeight()}.
      * @return Datos de estilo.
      */
     public DockStyle getDockStyle() {
@@ -142,162 +266,360 @@ public class DockControl extends AbstractNodeControl<DockControl> {
     }
     
     protected float getParentWidth() {
+        return getParentWidth(scalableGui.getScaleContext());
+    }
+    protected float getParentHeight() {
+        return getParentHeight(scalableGui.getScaleContext());
+    }
+    
+    /*
+        Dimensiones del padre segun un contexto de escalado ya resuelto,
+        evita volver a consultar al contenedor raiz.
+    */
+    private float getParentWidth(ScaleContext context) {
         if (hasParent()) {
             return parent.getWidth();
         } else {
-            return scalableGui.getWidth() * scalableGui.getScaleFactorWidth();
+            return context == null 
+                    ? 0.0F : context.getWidth() * context.getScaleFactorWidth();
         }
     }
-    protected float getParentHeight() {
+    private float getParentHeight(ScaleContext context) {
         if (hasParent()) {
             return parent.getHeight();
         } else {
-            return scalableGui.getHeight() * scalableGui.getScaleFactorHeight();
+            return context == null 
+                    ? 0.0F : context.getHeight() * context.getScaleFactorHeight();
+        }
+    }
+    
+    /**
+     * Determina si el componente debe volver a calcular su diseño, ya sea
+     * porque fue marcado como sucio, porque su {@code DockStyle} cambio o
+     * porque el contexto de escalado del contenedor raiz es otro.
+     * 
+     * @return {@code true} si el diseño ya no es valido, de lo contrario
+     *          {@code false}.
+     */
+    public boolean isLayoutDirty() {
+        if (layoutDirty || styleVersion != dockStyle.getModCount())
+            return true;
+        if (scalableGui == null)
+            return false;
+        
+        ScaleContext context = scalableGui.getScaleContext();
+        return context != scaleContext 
+                || context.getVersion() != scaleVersion;
+    }
+    
+    /**
+     * Marca el componente como sucio y notifica a los layouts padres para
+     * que la siguiente pasada de diseño visite este subarbol.
+     */
+    public void invalidateLayout() {
+        layoutDirty = true;
+        
+        DynamicLayout<?> owner = getOwnerLayout();
+        if (owner != null) {
+            owner.childInvalidated();
         }
     }
     
+    /*
+        Marca el componente como sucio sin notificar a los padres, lo
+        utiliza el layout cuando ya esta recorriendo este nivel.
+    */
+    void markLayoutDirty() {
+        layoutDirty = true;
+    }
+    
+    /**
+     * Devuelve el layout que gestiona este componente.
+     * @return Layout del padre, de lo contrario <code>null</code>.
+     */
+    public DynamicLayout<?> getOwnerLayout() {
+        return spatial == null 
+                ? null : DynamicLayout.layoutOf(spatial.getParent());
+    }
+    
     /**
      * Metodo encargado de actuliza las dimensiones y posiciones del
      * componente de la interfaz de usuario.
      */
     public void updateGui() {
-        Vector3f mySize = new Vector3f();        
-        // Obtenemos el control del componente.
-        GuiControl control = spatial.getControl(GuiControl.class);
-        if (scalableGui != null) {
-            Vector3f prefSize = dockStyle.getSize();            
-            mySize.setX(isLockScaling() 
-                                ? prefSize.getX() * scalableGui.getScaleFactorHeight()
-                                : prefSize.getX() * scalableGui.getScaleFactorWidth());
-                
-            mySize.setY(prefSize.getY() * scalableGui.getScaleFactorHeight());
-            mySize.setZ(prefSize.getZ());
+        if (LayoutMetrics.isEnabled()) {
+            LayoutMetrics.updateGui();
         }
-        // establecemos las nuevas caracteristicas
-        // sobre el control del componente.
-        control.setSize(mySize);
         
-        // centramos el nodo.
-        if (hasParent()) {
-            control.getNode().setLocalTranslation((getParentWidth()/ 2.0f),
-                                                 -(getParentHeight() / 2.0f), dockStyle.getLocation().z);
+        // El contexto se consulta una sola vez por actualizacion.
+        ScaleContext context = scalableGui == null 
+                                ? null : scalableGui.getScaleContext();
+        
+        computeLayout(context);
+        applyLayout(context);
+    }
+    
+    /*
+        Actualiza el componente tras un cambio en su diseño. Si algun
+        hermano tiene restricciones, puede alinearse con este componente: se
+        invalida el layout para que la siguiente pasada los resuelva en orden
+        (ver ConstraintSolver) en lugar de calcular solo este componente.
+    */
+    private void refreshGui() {
+        final DynamicLayout<?> owner = getOwnerLayout();
+        if (owner != null && owner.hasConstraints()) {
+            invalidateLayout();
         } else {
-            control.getNode().setLocalTranslation((scalableGui.getWidth() / 2f) * scalableGui.getScaleFactorWidth(),
-                                                  (scalableGui.getHeight() / 2f) * scalableGui.getScaleFactorHeight(), dockStyle.getLocation().z);
+            updateGui();
+        }
+    }
+    
+    /*
+        Fase de calculo con las dimensiones actuales del padre.
+    */
+    void computeLayout(ScaleContext context) {
+        computeLayout(context, getParentWidth(context), getParentHeight(context));
+    }
+    
+    /**
+     * Fase de calculo: resuelve las dimensiones y la traslacion local del
+     * componente en {@link #getLayoutResult()} sin modificar el grafo de
+     * escena. La posicion se resuelve a partir de los coeficientes
+     * precalculados del {@link Anchor}, sin distinguir caso por caso cada
+     * {@code Dock}.
+     * <p>
+     * Solo lee el estilo, el contexto y las dimensiones dadas del padre,
+     * por lo que se puede ejecutar fuera del hilo de renderizado.
+     * 
+     * @param context contexto de escalado del contenedor raiz.
+     * @param parentWidth largo del padre.
+     * @param parentHeight ancho del padre.
+     */
+    void computeLayout(ScaleContext context, float parentWidth, float parentHeight) {
+        if (context == null) {
+            // Sin contenedor raiz no hay escala, el componente queda sin
+            // dimensiones en el centro del padre.
+            result.set(parentWidth * 0.5F, -(parentHeight * 0.5F), dockStyle.getZ(), 0.0F, 0.0F, 0.0F);
+            return;
+        }
+        
+        // Con los factores de escala ajustados, el resultado de un
+        // intervalo conocido se reutiliza (salvo con restricciones, que
+        // dependen de los hermanos).
+        final boolean locked = hasParent() && getParent().isLockScaling();
+        if (context.isQuantized() && constraints == null) {
+            if (layoutCache == null) {
+                layoutCache = new LayoutCache();
+            } else if (layoutCache.get(context.getBucket(), dockStyle, 
+                                        getLayoutWidth(), getLayoutHeight(), getLayoutDepth(), 
+                                        parentWidth, parentHeight, locked, hasParent(), result)) {
+                return;
+            }
         }
-
-        // Calculamos la nueva posicion segun el diseño.
-        control.getNode().move(calculatePosition(control));
         
-        // Centramos el componete en la nueva posicion.
-         control.getNode().move(-mySize.x * 0.5F, mySize.y * 0.5F, 0.0F);
+        final float scaleFactorWidth  = context.getScaleFactorWidth(),
+                    scaleFactorHeight = context.getScaleFactorHeight();
+        
+        float width  = getLayoutWidth() * (isLockScaling() ? scaleFactorHeight : scaleFactorWidth),
+              height = getLayoutHeight() * scaleFactorHeight;
+        if (constraints != null) {
+            width  = constraints.resolveWidth(width, parentWidth, isLockScaling() ? scaleFactorHeight : scaleFactorWidth);
+            height = constraints.resolveHeight(height, parentHeight, scaleFactorHeight);
+        }
+        
+        // Si el padre bloquea el escalado, el desplazamiento en 'x' se
+        // escala con el mismo factor que 'y' (scaleFactorHeight).
+        final float scaleX = locked ? scaleFactorHeight : scaleFactorWidth;
+        LayoutSolver.place(dockStyle, width, height, getLayoutDepth(), scaleX, scaleFactorHeight, 
+                           hasParent(), parentWidth, parentHeight, result);
+        
+        if (constraints != null) {
+            constraints.align(result, scaleX, scaleFactorHeight);
+        } else if (layoutCache != null && context.isQuantized()) {
+            layoutCache.put(context.getBucket(), dockStyle, 
+                            getLayoutWidth(), getLayoutHeight(), getLayoutDepth(), 
+                            parentWidth, parentHeight, locked, hasParent(), result);
+        }
     }
-
+    
+    /**
+     * Devuelve las restricciones del diseño de este componente, se generan
+     * con la primera consulta.
+     * @return Restricciones del componente.
+     */
+    public DockConstraints getConstraints() {
+        if (constraints == null) {
+            constraints = new DockConstraints(this);
+            constraintsChanged(false);
+        }
+        return constraints;
+    }
+    
+    /**
+     * Determina si el componente tiene restricciones.
+     * @return Un valor booleano.
+     */
+    public boolean hasConstraints() {
+        return constraints != null;
+    }
+    
+    /*
+        Restricciones sin generarlas, para uso interno del paquete.
+    */
+    DockConstraints constraints() {
+        return constraints;
+    }
+    
+    /*
+        Las restricciones cambiaron: el layout debe resolver este
+        componente y, si cambiaron las alineaciones, volver a ordenar.
+    */
+    void constraintsChanged(boolean order) {
+        DynamicLayout<?> owner = getOwnerLayout();
+        if (owner != null) {
+            owner.constraintsChanged(order);
+        }
+        invalidateLayout();
+    }
+    
+    /*
+        Determina si otro control es un hermano (mismo nodo padre).
+    */
+    boolean isSibling(DockControl other) {
+        return spatial != null && other.spatial != null 
+                && spatial.getParent() != null
+                && spatial.getParent() == other.spatial.getParent();
+    }
+    
+    /*
+        Determina si se debe volver a resolver porque un hermano de
+        referencia cambio en la pasada en curso.
+    */
+    boolean isSiblingChanged() {
+        return constraints != null && constraints.isSiblingChanged();
+    }
+    
     /**
-     * Metodo encargado de escalar la posicion del componente segun el diseño
-     * establecido de ello.
+     * Fase de aplicacion: escribe el resultado de la fase de calculo sobre
+     * el componente. Se debe ejecutar en el hilo de renderizado.
+     * <p>
+     * Solo se escribe lo que cambio: si las dimensiones son las mismas no
+     * se invoca {@code GuiControl.setSize} (ni la invalidacion de Lemur que
+     * conlleva) y si la traslacion es la misma el nodo no se marca para
+     * actualizar su estado geometrico.
      * 
-     * @param control
-     *          Control de componente GUI.
-     * @return Posicione 3D para el componente.
+     * @param context contexto con el que se calculo el resultado.
      */
-    private Vector3f calculatePosition(GuiControl control) {
-        if (scalableGui == null)
-            return new Vector3f(0.0F, 0.0F, 0.0F);
-                
-        float width  = control.getSize().x,
-              height = control.getSize().y;
+    void applyLayout(ScaleContext context) {
+        // establecemos las nuevas caracteristicas
+        // sobre el control del componente.
+        GuiControl control = spatial.getControl(GuiControl.class);
+        Vector3f size = control.getSize();
+        boolean changed = false;
+        if (size.x != result.width 
+                || size.y != result.height || size.z != result.depth) {
+            control.setSize(tmpSize.set(result.width, result.height, result.depth));
+            changed = true;
+        }
+        
+        Vector3f translation = spatial.getLocalTranslation();
+        boolean moved = changed;
+        if (translation.x != result.x 
+                || translation.y != result.y || translation.z != result.z) {
+            spatial.setLocalTranslation(result.x, result.y, result.z);
+            moved = true;
+        }
         
-        Vector3f myPos = dockStyle.getLocation();
-        float offsetX = myPos.getX();
-        float offsetY = myPos.getY();
+        // El indice espacial vuelve a leer el rectangulo en la siguiente
+        // consulta.
+        if (moved || indexSlot < 0) {
+            SpatialIndex index = scalableGui == null 
+                                    ? null : scalableGui.getSpatialIndex();
+            if (index != null) {
+                index.invalidate(this);
+            }
+        }
+        
+        // Si cambio la escala, la fuente se vuelve a resolver.
+        if (!Float.isNaN(fontSize) && (context != fontContext 
+                || (context != null && context.getVersion() != fontScaleVersion))) {
+            applyFontSize(context);
+        }
+        
+        // Guardamos con que datos se resolvio el diseño.
+        layoutDirty  = false;
+        styleVersion = dockStyle.getModCount();
+        scaleContext = context;
+        scaleVersion = context == null ? 0L : context.getVersion();
+    }
+    
+    /*
+        Actualiza el recorte automatico con el rectangulo en pantalla del
+        componente, devuelve 'true' si es visible. Los componentes ocultos
+        por el usuario (o por su padre) no se modifican.
+    */
+    boolean updateCulling(ScaleContext context) {
+        if (!autoCulled 
+                && spatial.getCullHint() == Spatial.CullHint.Always) {
+            return false;
+        }
         
-        float xPos, yPos, zPos = myPos.getZ();
-        switch (dockStyle.getDock()) {
-            case Center:
-                if (hasParent() && getParent().isLockScaling()) {
-                    xPos = (offsetX * scalableGui.getScaleFactorHeight());
-                    yPos = (offsetY * scalableGui.getScaleFactorHeight());
-                } else {
-                    xPos = (offsetX * scalableGui.getScaleFactorWidth());
-                    yPos = (offsetY * scalableGui.getScaleFactorHeight());
-                }
-                return new Vector3f(xPos, yPos, zPos);
-            case CenterBottom:
-                if (hasParent() && getParent().isLockScaling()) {
-                    xPos = offsetX * scalableGui.getScaleFactorHeight();
-                    yPos = -(getParentHeight() * 0.5f) + (height * 0.5f) + (offsetY * scalableGui.getScaleFactorHeight());
-                } else {
-                    xPos = offsetX * scalableGui.getScaleFactorWidth();
-                    yPos = -(getParentHeight() * 0.5f) + (height * 0.5f) + (offsetY * scalableGui.getScaleFactorHeight());
-                }
-                return new Vector3f(xPos, yPos, zPos);
-            case CenterTop:
-                if (hasParent() && getParent().isLockScaling()) {
-                    xPos = offsetX * scalableGui.getScaleFactorHeight();
-                    yPos = (getParentHeight() * 0.5f) - (height * 0.5f) - (offsetY * scalableGui.getScaleFactorHeight());
-                } else {
-                    xPos = offsetX * scalableGui.getScaleFactorWidth();
-                    yPos = (getParentHeight() * 0.5f) - (height * 0.5f) - (offsetY * scalableGui.getScaleFactorHeight());
-                }
-                return new Vector3f(xPos, yPos, zPos);
-            case LeftBottom:
-                if (hasParent() && getParent().isLockScaling()) {
-                    xPos = -(getParentWidth() * 0.5f) + (width * 0.5f) + offsetX * scalableGui.getScaleFactorHeight();
-                    yPos = -(getParentHeight() * 0.5f) + (height * 0.5f) + (offsetY * scalableGui.getScaleFactorHeight());
-                } else {
-                    xPos = -(getParentWidth() * 0.5f) + (width * 0.5f) + offsetX * scalableGui.getScaleFactorWidth();
-                    yPos = -(getParentHeight() * 0.5f) + (height * 0.5f) + (offsetY * scalableGui.getScaleFactorHeight());
-                }
-                return new Vector3f(xPos, yPos, zPos);
-            case LeftCenter:
-                if (hasParent() && getParent().isLockScaling()) {
-                    xPos = -(getParentWidth() * 0.5f) + (width * 0.5f) + offsetX * scalableGui.getScaleFactorHeight();
-                    yPos = (offsetY * scalableGui.getScaleFactorHeight());
-                } else {
-                    xPos = -(getParentWidth() * 0.5f) + (width * 0.5f) + offsetX * scalableGui.getScaleFactorWidth();
-                    yPos = (offsetY * scalableGui.getScaleFactorHeight());
-                }
-                return new Vector3f(xPos, yPos, zPos);
-            case LeftTop:
-                if (hasParent() && getParent().isLockScaling()) {
-                    xPos = -(getParentWidth() * 0.5f) + (width * 0.5f) + offsetX * scalableGui.getScaleFactorHeight();
-                    yPos = (getParentHeight() * 0.5f) - (height * 0.5f) - (offsetY * scalableGui.getScaleFactorHeight());
-                } else {
-                    xPos = -(getParentWidth() * 0.5f) + (width * 0.5f) + offsetX * scalableGui.getScaleFactorWidth();
-                    yPos = (getParentHeight() * 0.5f) - (height * 0.5f) - (offsetY * scalableGui.getScaleFactorHeight());
-                }
-                return new Vector3f(xPos, yPos, zPos);
-            case RightBottom:
-                if (hasParent() && getParent().isLockScaling()) {
-                    xPos = (getParentWidth() * 0.5f) - (width * 0.5f) - (offsetX * scalableGui.getScaleFactorHeight());
-                    yPos = -(getParentHeight() * 0.5f) + (height * 0.5f) + (offsetY * scalableGui.getScaleFactorHeight());
-                } else {
-                    xPos = (getParentWidth() * 0.5f) - (width * 0.5f) - (offsetX * scalableGui.getScaleFactorWidth());
-                    yPos = -(getParentHeight() * 0.5f) + (height * 0.5f) + (offsetY * scalableGui.getScaleFactorHeight());
-                }
-                return new Vector3f(xPos, yPos, zPos);
-            case RightCenter:
-                if (hasParent() && getParent().isLockScaling()) {
-                    xPos = (getParentWidth() * 0.5f) - (width * 0.5f) - (offsetX * scalableGui.getScaleFactorHeight());
-                    yPos = (offsetY * scalableGui.getScaleFactorHeight());
-                } else {
-                    xPos = (getParentWidth() * 0.5f) - (width * 0.5f) - (offsetX * scalableGui.getScaleFactorWidth());
-                    yPos = (offsetY * scalableGui.getScaleFactorHeight());
-                }
-                return new Vector3f(xPos, yPos, zPos);
-            case RightTop:
-                if (hasParent() && getParent().isLockScaling()) {
-                    xPos = (getParentWidth() * 0.5f) - (width * 0.5f) - (offsetX * scalableGui.getScaleFactorHeight());
-                    yPos = (getParentHeight() * 0.5f) - (height * 0.5f) - (offsetY * scalableGui.getScaleFactorHeight());
-                } else {
-                    xPos = (getParentWidth() * 0.5f) - (width * 0.5f) - (offsetX * scalableGui.getScaleFactorWidth());
-                    yPos = (getParentHeight() * 0.5f) - (height * 0.5f) - (offsetY * scalableGui.getScaleFactorHeight());
-                }
-                return new Vector3f(xPos, yPos, zPos);
-            default:
-                throw new AssertionError();
+        final boolean onScreen = isOnScreen(context);
+        if (onScreen == autoCulled) {
+            if (onScreen) {
+                clearCulling();
+            } else {
+                culledHint = spatial.getLocalCullHint();
+                autoCulled = true;
+                spatial.setCullHint(Spatial.CullHint.Always);
+            }
         }
+        return onScreen;
+    }
+    
+    /*
+        Restaura la indicacion de recorte que tenia el componente.
+    */
+    void clearCulling() {
+        if (!autoCulled)
+            return;
+        
+        spatial.setCullHint(culledHint);
+        autoCulled = false;
+        culledHint = null;
+    }
+    
+    /**
+     * Determina si el componente esta oculto por el recorte automatico.
+     * @return Un valor booleano.
+     */
+    public boolean isAutoCulled() {
+        return autoCulled;
+    }
+    
+    /*
+        Determina si el rectangulo en pantalla del componente se superpone
+        con la pantalla.
+    */
+    private boolean isOnScreen(ScaleContext context) {
+        if (context == null)
+            return true;
+        
+        final Vector3f size  = spatial.getControl(GuiControl.class).getSize(),
+                       pos   = spatial.getWorldTranslation(),
+                       scale = spatial.getWorldScale();
+        return pos.x + size.x * scale.x >= 0.0F 
+                && pos.x <= context.getAppWidth()
+                && pos.y >= 0.0F 
+                && pos.y - size.y * scale.y <= context.getAppHeight();
+    }
+    
+    /**
+     * Devuelve el ultimo diseño resuelto de este componente.
+     * @return Un LayoutResult como valor.
+     */
+    public LayoutResult getLayoutResult() {
+        return result;
     }
     
     /**
@@ -314,8 +636,214 @@ public class DockControl extends AbstractNodeControl<DockControl> {
      * @param y posicion en {@code y}.
      */
     public void setPosition(float x, float y) {
-        this.dockStyle.setLocation(x, y);
-        this.updateGui();
+        editableStyle().setLocation(x, y);
+        this.refreshGui();
+    }
+    
+    /**
+     * Anima el desplazamiento del componente hasta la posicion dada.
+     * 
+     * @param x posicion final en {@code x}.
+     * @param y posicion final en {@code y}.
+     * @param duration duracion en segundos.
+     * @param easing funcion de aceleracion.
+     */
+    public void animatePosition(float x, float y, float duration, Easing easing) {
+        DockTween t = tween();
+        t.start(DockTween.X, dockStyle.getX(), x, duration, easing);
+        t.start(DockTween.Y, dockStyle.getY(), y, duration, easing);
+    }
+    
+    /**
+     * Anima las dimensiones (sin escalar) del componente.
+     * 
+     * @param width largo final.
+     * @param height ancho final.
+     * @param duration duracion en segundos.
+     * @param easing funcion de aceleracion.
+     */
+    public void animateSize(float width, float height, float duration, Easing easing) {
+        DockTween t = tween();
+        t.start(DockTween.WIDTH, getLayoutWidth(), width, duration, easing);
+        t.start(DockTween.HEIGHT, getLayoutHeight(), height, duration, easing);
+    }
+    
+    /**
+     * Anima la profundidad del componente.
+     * 
+     * @param z profundidad final.
+     * @param duration duracion en segundos.
+     * @param easing funcion de aceleracion.
+     */
+    public void animateDepth(float z, float duration, Easing easing) {
+        tween().start(DockTween.DEPTH, dockStyle.getZ(), z, duration, easing);
+    }
+    
+    /**
+     * Detiene las animaciones en curso.
+     * @param complete {@code true} para dejar los valores en su destino,
+     *                  {@code false} para dejarlos donde estan.
+     */
+    public void stopAnimation(boolean complete) {
+        if (tween == null)
+            return;
+        
+        final int stopped = tween.stop(complete);
+        if (complete && stopped != 0) {
+            applyTween(stopped, false);
+        } else {
+            restorePreferredSize();
+        }
+    }
+    
+    /**
+     * Determina si el componente tiene animaciones en curso.
+     * @return Un valor booleano.
+     */
+    public boolean isAnimating() {
+        return tween != null && tween.isActive();
+    }
+    
+    public void setAnimationListener(AnimationListener animationListener) {
+        this.animationListener = animationListener;
+    }
+    
+    /*
+        Sincroniza las dimensiones preferidas del componente, devuelve true
+        (y marca el control como sucio) solo si cambiaron.
+    */
+    boolean syncLayoutSize(Vector3f size) {
+        if (layoutSizeSynced && layoutSize.equals(size))
+            return false;
+        
+        layoutSize.set(size);
+        layoutSizeSynced = true;
+        layoutDirty = true;
+        return true;
+    }
+    
+    /**
+     * Devuelve el largo (sin escalar) con el que se resuelve el diseño: el
+     * sincronizado desde las dimensiones preferidas del componente o,
+     * mientras no lo haya, el del estilo.
+     * @return Largo actual.
+     */
+    public float getLayoutWidth() {
+        return layoutSizeSynced ? layoutSize.x : dockStyle.getWidth();
+    }
+    
+    /**
+     * Devuelve el ancho (sin escalar) con el que se resuelve el diseño,
+     * ver {@link #getLayoutWidth()}.
+     * @return Ancho actual.
+     */
+    public float getLayoutHeight() {
+        return layoutSizeSynced ? layoutSize.y : dockStyle.getHeight();
+    }
+    
+    /**
+     * Devuelve la profundidad con la que se resuelve el diseño, ver
+     * {@link #getLayoutWidth()}.
+     * @return Profundidad actual.
+     */
+    public float getLayoutDepth() {
+        return layoutSizeSynced ? layoutSize.z : dockStyle.getDepth();
+    }
+    
+    /*
+        Devuelve el estilo para modificarlo; si es un estilo compartido
+        (inmutable), antes se sustituye por una copia propia.
+    */
+    DockStyle editableStyle() {
+        if (dockStyle.isFrozen()) {
+            dockStyle = dockStyle.clone();
+        }
+        return dockStyle;
+    }
+    
+    private DockTween tween() {
+        if (tween == null) {
+            tween = new DockTween();
+        }
+        return tween;
+    }
+
+    /**
+     * Avanza las animaciones en curso. Solo se escriben en el estilo los
+     * canales activos y el componente queda marcado como sucio: la
+     * siguiente pasada del layout propietario resuelve de una vez todos
+     * los hijos animados en el frame, en lugar de una actualizacion por
+     * cada uno.
+     * 
+     * @param tpf tiempo por frame.
+     */
+    @Override
+    protected void controlUpdate(float tpf) {
+        if (tween == null || !tween.isActive())
+            return;
+        
+        applyTween(tween.advance(tpf), true);
+        if (!tween.isActive() && animationListener != null) {
+            animationListener.animationCompleted(this);
+        }
+    }
+    
+    /*
+        Escribe en el estilo los canales dados y actualiza el componente;
+        con 'batched' solo se invalida, si tiene un layout propietario.
+    */
+    private void applyTween(int channels, boolean batched) {
+        if (DockTween.has(channels, DockTween.X) || DockTween.has(channels, DockTween.Y)) {
+            editableStyle().setLocation(DockTween.has(channels, DockTween.X) ? tween.value(DockTween.X) : dockStyle.getX(),
+                                  DockTween.has(channels, DockTween.Y) ? tween.value(DockTween.Y) : dockStyle.getY());
+        }
+        if (DockTween.has(channels, DockTween.DEPTH)) {
+            editableStyle().setDepth(tween.value(DockTween.DEPTH));
+        }
+        if (DockTween.has(channels, DockTween.WIDTH) || DockTween.has(channels, DockTween.HEIGHT)) {
+            // Las dimensiones del estilo se sincronizan con las preferidas
+            // del componente, se animan ambas.
+            Vector3f size = tween.preferredSize.set(
+                    DockTween.has(channels, DockTween.WIDTH) ? tween.value(DockTween.WIDTH) : getLayoutWidth(),
+                    DockTween.has(channels, DockTween.HEIGHT) ? tween.value(DockTween.HEIGHT) : getLayoutHeight(),
+                    getLayoutDepth());
+            syncLayoutSize(size);
+            
+            // El vector de la animacion se asigna una sola vez, Lemur
+            // conserva la referencia y los siguientes frames solo cambian
+            // su valor sin invalidar al padre.
+            if (tween.previousSize == null) {
+                final Panel gui = getGui();
+                tween.previousSize = gui.getPreferredSize();
+                gui.setPreferredSize(size);
+            }
+            
+            if (!tween.isActive(DockTween.WIDTH) && !tween.isActive(DockTween.HEIGHT)) {
+                restorePreferredSize();
+            }
+        }
+        
+        if (batched && getOwnerLayout() != null) {
+            invalidateLayout();
+        } else {
+            refreshGui();
+        }
+    }
+    
+    /*
+        Al terminar (o cancelar) la animacion de las dimensiones, el
+        componente vuelve a utilizar su propio vector de dimensiones
+        preferidas, con el valor alcanzado; el vector de la animacion deja
+        de estar referenciado por Lemur.
+    */
+    private void restorePreferredSize() {
+        final Vector3f previous = tween.previousSize;
+        if (previous == null)
+            return;
+        
+        tween.previousSize = null;
+        previous.set(tween.preferredSize);
+        getGui().setPreferredSize(previous);
     }
     
     /**
@@ -323,9 +851,8 @@ public class DockControl extends AbstractNodeControl<DockControl> {
      * @param z profundidad.
      */
     public void setDepthPosition(float z) {
-        Vector3f old = this.dockStyle.getLocation();
-        this.dockStyle.setLocation(new Vector3f(old.getX(), old.getY(), z));
-        this.updateGui();
+        editableStyle().setDepth(z);
+        this.refreshGui();
     }
 
     /**
@@ -333,22 +860,43 @@ public class DockControl extends AbstractNodeControl<DockControl> {
      * @param dock Nuevo diseño.
      */
     public void setDock(Dock dock) {
-        this.dockStyle.setDock(dock == null 
+        editableStyle().setDock(dock == null 
                                 ? Dock.Center : dock);
-        this.updateGui();
+        this.refreshGui();
+    }
+    
+    /**
+     * Establece un anclaje personalizado para la posicion.
+     * @param anchor Nuevo anclaje, <code>null</code> para volver a 
+     *                  utilizar el del {@code Dock}.
+     */
+    public void setAnchor(Anchor anchor) {
+        editableStyle().setAnchor(anchor);
+        this.refreshGui();
     }
 
     public void setDockStyle(@Nonnull DockStyle dockStyle) {
         this.dockStyle = dockStyle;
-        this.updateGui();
+        this.refreshGui();
     }
     
     public Vector3f getPosition() {
         return spatial.getLocalTranslation();
     }
     public Vector3f getScreenPosition() {
-        return new Vector3f(getPosition().x + (scalableGui.getWidth() * 0.5f * scalableGui.getScaleFactorWidth()),
-                            getPosition().y + (scalableGui.getHeight() * 0.5f * scalableGui.getScaleFactorHeight()), getPosition().z);
+        return getScreenPosition(new Vector3f());
+    }
+    
+    /**
+     * Version de {@link #getScreenPosition()} sin generar basura.
+     * @param store vector donde se guarda el resultado.
+     * @return El vector {@code store}.
+     */
+    public Vector3f getScreenPosition(@Nonnull Vector3f store) {
+        ScaleContext context = scalableGui.getScaleContext();
+        Vector3f position = getPosition();
+        return store.set(position.x + (context.getWidth() * 0.5f * context.getScaleFactorWidth()),
+                         position.y + (context.getHeight() * 0.5f * context.getScaleFactorHeight()), position.z);
     }
     
     /**
@@ -357,9 +905,32 @@ public class DockControl extends AbstractNodeControl<DockControl> {
      * @param size tamaño de la funete.
      */
     public void setFontSize(float size) {
+        this.fontSize = size;
+        this.applyFontSize(scalableGui.getScaleContext());
+    }
+    
+    /*
+        Aplica el tamaño de la fuente cuantizado con el FontCache, solo se
+        modifica la etiqueta si el tamaño o la variante cambian.
+    */
+    private void applyFontSize(ScaleContext context) {
+        fontContext = context;
+        fontScaleVersion = context == null ? 0L : context.getVersion();
+        
         Panel gui = getGui();
-        if (gui instanceof Label) {
-            ((Label) gui).setFontSize(size * scalableGui.getScaleFactorHeight());
+        if (context == null || !(gui instanceof Label))
+            return;
+        
+        Label label = (Label) gui;
+        FontCache cache = FontCache.getDefault();
+        float effective = cache.quantize(fontSize * context.getScaleFactorHeight());
+        
+        BitmapFont font = cache.resolve(label.getFont(), effective);
+        if (font != label.getFont()) {
+            label.setFont(font);
+        }
+        if (label.getFontSize() != effective) {
+            label.setFontSize(effective);
         }
     }
     
@@ -15,14 +15,36 @@
  */
 package org.jnightride.jgui.core;
 
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.export.Savable;
 import com.jme3.math.Vector3f;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.io.IOException;
+import java.util.Objects;
 import javax.annotation.Nonnull;
 
 /**
  * Un <code>DockStyle</code> es el encargado de gestionar los parametros
  * que se pasan por parametro al agregar un nuevo nodo hijo al nodo
  * padre con el layout <code>DynamicLayout</code>.
+ * <p>
+ * Los estilos se comparan por valor. Con {@link #intern()} se obtiene una
+ * instancia inmutable y compartida con los mismos valores, util cuando
+ * muchos componentes utilizan el mismo estilo (por ejemplo los elementos
+ * de una lista); un {@link DockControl} copia el estilo compartido antes
+ * de modificarlo.
+ * <p>
+ * Las dimensiones del estilo son las iniciales: cuando el componente
+ * cambia sus dimensiones preferidas (o las anima), el {@link DockControl}
+ * no las escribe en el estilo; las actuales se consultan con
+ * {@link DockControl#getLayoutWidth()} y
+ * {@link DockControl#getLayoutHeight()}.
  * 
  * @author wil
  * @version 1.0.0
@@ -30,66 +52,102 @@ import javax.annotation.Nonnull;
  * @since 1.0.0
  */
 public final 
-class DockStyle implements Cloneable {
+class DockStyle implements Cloneable, Savable {
+    
+    /** Instancias compartidas, ver {@link #intern()}. */
+    private static final Interner<DockStyle> INTERNER = Interners.newWeakInterner();
     
     /**
-     * Objeto {@code Boolean} encargado de determinar el tipo de escalado
-     * que se aplicara al nodo hijo.
+     * Encargado de determinar el tipo de escalado que se aplicara al 
+     * nodo hijo.
      */
-    private Boolean lockscaling;
+    private boolean lockscaling;
     
     /**
      * Encargado de determinar la referencia en donde se calculara su posicion
      * en el espacio de la GUI.
      */
     private Dock dock;
+    
+    /**
+     * Anclaje personalizado, si es <code>null</code> se utiliza el 
+     * anclaje del {@code Dock}.
+     */
+    private Anchor anchor;
 
+    /*
+        Posicion {@code original} del 'Gui', es utilizada para determinar
+        la escala de de las posiciones del los componentes en la pantalla.
+    */
+    private float x, y, z = 1.0F;
+    
+    /*
+        Dimensiones {@code original} del 'Gui', estos datos se utilizan 
+        para escalar/redimensionar un componente en pantalla.
+    */
+    private float width, height, depth;
+    
+    /** Determina si el estilo es inmutable (compartido). */
+    private boolean frozen;
+    
     /**
-     * Encargado de almacenar la posicion {@code original} del
-     * 'Gui', es utilizada para determinar la escala de de las posiciones
-     * del los componentes en la pantalla.
+     * Contador de modificaciones, cambia con cada setter; los controles
+     * lo comparan para saber si deben volver a calcular su diseño.
      */
-    private Vector3f pos = new Vector3f(0.0F, 0.0F, 1.0F);
+    private int modCount;
     
     /**
-     * Se encarga de almacenar las dimensiones {@code original} del
-     * 'Gui', estos datos se utilizan para escalar/redimensionar un
-     * componente en pantalla.
+     * Constructor de la clase para uso interno (serializacion).
      */
-    private Vector3f size = new Vector3f(0.0F, 0.0F, 0.0F);
+    DockStyle() {
+        this(new Object[0]);
+    }
     
     /**
      * Constructor predeterminado de la clase <code>DockStyle</code> en donde
-     * se puede pasar los {@code Object... constraints} del nodo hijo.     * 
+     * se puede pasar los {@code Object... constraints} del nodo hijo. Si
+     * uno de los parametros es otro {@code DockStyle}, se copian todos sus
+     * valores.
+     * 
      * @param constraints Lista de parametros.
      */
     public DockStyle(@Nonnull Object... constraints) {
+        boolean lockSet = false;
         for (final Object element : constraints) {
             if (element == null)
                 continue;
             
-            if ((element instanceof Boolean) 
-                    && (this.lockscaling == null)) {
+            if (element instanceof DockStyle) {
+                final DockStyle other = (DockStyle) element;
+                this.lockscaling = other.lockscaling;
+                this.dock   = other.dock;
+                this.anchor = other.anchor;
+                this.x = other.x;
+                this.y = other.y;
+                this.z = other.z;
+                this.width  = other.width;
+                this.height = other.height;
+                this.depth  = other.depth;
+                lockSet = true;
+            } else if ((element instanceof Boolean) && !lockSet) {
                 this.lockscaling = (Boolean) element;
+                lockSet = true;
             } else if ((element instanceof Dock) 
                             && (this.dock == null)) {
                 this.dock = (Dock) element;
+            } else if ((element instanceof Anchor)
+                            && (this.anchor == null)) {
+                this.anchor = (Anchor) element;
             }
-            
-            if (this.dock != null 
-                    && this.lockscaling != null)
-                break;
         }
-        
-        if (this.lockscaling == null)
-            this.lockscaling = Boolean.FALSE;
             
         if (this.dock == null)
             this.dock = Dock.Center;
     }
     
     /**
-     * Metodo encargado de clonar {@code DockStyle}.
+     * Metodo encargado de clonar {@code DockStyle}, el clon siempre se
+     * puede modificar.
      * @return Clon de este objeto.
      */
     @Override
@@ -97,10 +155,7 @@ class DockStyle implements Cloneable {
         try {
             DockStyle clon = (DockStyle) 
                             super.clone();
-            clon.lockscaling = lockscaling;
-            clon.dock = dock;
-            clon.pos  = pos.clone();
-            clon.size = size.clone();
+            clon.frozen = false;
             return clon;
         } catch (CloneNotSupportedException e) {
             throw new InternalError(e);
@@ -117,20 +172,29 @@ class DockStyle implements Cloneable {
      *          Ancho de la recta.
      */
     public void setSize(float with, float height) {
-        this.setSize(new Vector3f(with, height, this.size.getZ()));
+        checkFrozen();
+        this.width  = with;
+        this.height = height;
+        this.modCount++;
     }
     
     /**
      * Metodo encargado de establecer una nueva dimension. Si el parametro
-     * es <code>null</code>, las dimensiones seran <code>0</code>.
+     * es <code>null</code>, las dimensiones seran <code>0</code>. Los valores
+     * se copian, el vector del parametro no queda vinculado a este estilo.
+     * 
      * @param size Vector 3D para la nueva dimension.
      */
     public void setSize(Vector3f size) {
+        checkFrozen();
         if (size == null) {
-            this.size.zero();
+            this.width = this.height = this.depth = 0.0F;
         } else {
-            this.size = size;
+            this.width  = size.x;
+            this.height = size.y;
+            this.depth  = size.z;
         }
+        this.modCount++;
     }
     
     /**
@@ -139,30 +203,69 @@ class DockStyle implements Cloneable {
      * @param y nueva posicion en {@code y}.
      */
     public void setLocation(float x, float y) {
-        this.setLocation(new Vector3f(x, y, this.pos.getZ()));
+        checkFrozen();
+        this.x = x;
+        this.y = y;
+        this.modCount++;
     }
     
     /**
      * Metodo encargado de establecer una nueva posiciones. Si la posiciones
      * es <code>null</code>, las tres posiciones {@code x, y, z} seran <code>0</code>.
+     * Los valores se copian, el vector del parametro no queda vinculado a 
+     * este estilo.
+     * 
      * @param pos Vector 3D para la nueva posicion.
      */
     public void setLocation(Vector3f pos) {
+        checkFrozen();
         if (pos == null) {
-            this.pos.zero();
+            this.x = this.y = this.z = 0.0F;
         } else {
-            this.pos = pos;
+            this.x = pos.x;
+            this.y = pos.y;
+            this.z = pos.z;
         }
+        this.modCount++;
+    }
+    
+    /**
+     * Establece la profundidad de la recta sin modificar su posicion
+     * en 2D.
+     * @param z nueva posicion en {@code z}.
+     */
+    public void setDepth(float z) {
+        checkFrozen();
+        this.z = z;
+        this.modCount++;
     }
 
     /*
         Otros Setters.
     */
     public void setLockscaling(@Nonnull Boolean lockscaling) {
+        checkFrozen();
         this.lockscaling = lockscaling;
+        this.modCount++;
     }
     public void setDock(@Nonnull Dock dock) {
+        checkFrozen();
         this.dock = dock;
+        this.anchor = null;
+        this.modCount++;
+    }
+    
+    /**
+     * Establece un anclaje personalizado, tiene prioridad sobre el
+     * {@code Dock}; si es <code>null</code> se vuelve a utilizar el
+     * anclaje del {@code Dock}.
+     * 
+     * @param anchor Nuevo anclaje.
+     */
+    public void setAnchor(Anchor anchor) {
+        checkFrozen();
+        this.anchor = anchor;
+        this.modCount++;
     }
     
     /**
@@ -170,7 +273,7 @@ class DockStyle implements Cloneable {
      * @return Dimension de la recta.
      */
     public Vector3f getSize() {
-        return this.size.clone();
+        return new Vector3f(width, height, depth);
     }
     
     /**
@@ -178,8 +281,40 @@ class DockStyle implements Cloneable {
      * @return Posicicion de la recta.
      */
     public Vector3f getLocation() {
-        return this.pos.clone();
+        return new Vector3f(x, y, z);
+    }
+    
+    /**
+     * Copia las dimensiones de esta {@code Rect} en el vector dado, a
+     * diferencia de {@link #getSize()} no genera ningun objeto nuevo.
+     * 
+     * @param store Vector donde se almacenan las dimensiones.
+     * @return El mismo vector {@code store}.
+     */
+    public Vector3f getSize(@Nonnull Vector3f store) {
+        return store.set(width, height, depth);
     }
+    
+    /**
+     * Copia las posiciones de esta {@code Rect} en el vector dado, a
+     * diferencia de {@link #getLocation()} no genera ningun objeto nuevo.
+     * 
+     * @param store Vector donde se almacenan las posiciones.
+     * @return El mismo vector {@code store}.
+     */
+    public Vector3f getLocation(@Nonnull Vector3f store) {
+        return store.set(x, y, z);
+    }
+    
+    /*
+        Getters primitivos, leen directamente los valores sin clonar.
+    */
+    public float getX()      { return this.x; }
+    public float getY()      { return this.y; }
+    public float getZ()      { return this.z; }
+    public float getWidth()  { return this.width; }
+    public float getHeight() { return this.height; }
+    public float getDepth()  { return this.depth; }
 
     /*
         Otros Getters.
@@ -192,4 +327,152 @@ class DockStyle implements Cloneable {
     public Dock getDock() {
         return dock;
     }
+    
+    /**
+     * Devuelve el anclaje efectivo de este estilo: el personalizado si
+     * existe, de lo contrario el del {@code Dock}.
+     * @return Un Anchor como valor.
+     */
+    @Nonnull
+    public Anchor getAnchor() {
+        return anchor != null ? anchor : dock.getAnchor();
+    }
+    
+    /**
+     * Determina si este estilo tiene un anclaje personalizado.
+     * @return Un valor booleano.
+     */
+    public boolean hasCustomAnchor() {
+        return anchor != null;
+    }
+    
+    @Override
+    public void write(JmeExporter ex) throws IOException {
+        OutputCapsule out = ex.getCapsule(this);
+        out.write(lockscaling, "lockscaling", false);
+        out.write(dock, "dock", Dock.Center);
+        
+        out.write(anchor != null, "customAnchor", false);
+        if (anchor != null) {
+            out.write(anchor.getX(), "anchorX", 0.5F);
+            out.write(anchor.getY(), "anchorY", 0.5F);
+            out.write(anchor.getPivotX(), "pivotX", 0.5F);
+            out.write(anchor.getPivotY(), "pivotY", 0.5F);
+        }
+        
+        out.write(x, "x", 0.0F);
+        out.write(y, "y", 0.0F);
+        out.write(z, "z", 1.0F);
+        out.write(width, "width", 0.0F);
+        out.write(height, "height", 0.0F);
+        out.write(depth, "depth", 0.0F);
+    }
+
+    @Override
+    public void read(JmeImporter im) throws IOException {
+        checkFrozen();
+        InputCapsule in = im.getCapsule(this);
+        lockscaling = in.readBoolean("lockscaling", false);
+        dock = in.readEnum("dock", Dock.class, Dock.Center);
+        
+        anchor = null;
+        if (in.readBoolean("customAnchor", false)) {
+            anchor = Anchor.of(in.readFloat("anchorX", 0.5F), in.readFloat("anchorY", 0.5F), 
+                               in.readFloat("pivotX", 0.5F), in.readFloat("pivotY", 0.5F));
+        }
+        
+        x = in.readFloat("x", 0.0F);
+        y = in.readFloat("y", 0.0F);
+        z = in.readFloat("z", 1.0F);
+        width  = in.readFloat("width", 0.0F);
+        height = in.readFloat("height", 0.0F);
+        depth  = in.readFloat("depth", 0.0F);
+        modCount++;
+    }
+    
+    /**
+     * Devuelve una instancia inmutable y compartida con los mismos valores
+     * que este estilo; los estilos iguales devuelven la misma instancia
+     * mientras alguien la utilice.
+     * 
+     * @return Un DockStyle inmutable.
+     */
+    public DockStyle intern() {
+        if (frozen)
+            return this;
+        
+        final DockStyle copy = clone();
+        copy.frozen = true;
+        return INTERNER.intern(copy);
+    }
+    
+    /**
+     * Determina si este estilo es inmutable, ver {@link #intern()}.
+     * @return Un valor booleano.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+    
+    /*
+        Compara los valores que se pasan como parametros al agregar un
+        hijo: escalado, dock y anclaje.
+    */
+    boolean sameConstraints(DockStyle other) {
+        return lockscaling == other.lockscaling 
+                && dock == other.dock 
+                && Objects.equals(anchor, other.anchor);
+    }
+    
+    private void checkFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Frozen DockStyle, use clone() to edit it.");
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 23 * hash + (this.lockscaling ? 1 : 0);
+        hash = 23 * hash + this.dock.hashCode();
+        hash = 23 * hash + Objects.hashCode(this.anchor);
+        hash = 23 * hash + Float.floatToIntBits(this.x);
+        hash = 23 * hash + Float.floatToIntBits(this.y);
+        hash = 23 * hash + Float.floatToIntBits(this.z);
+        hash = 23 * hash + Float.floatToIntBits(this.width);
+        hash = 23 * hash + Float.floatToIntBits(this.height);
+        hash = 23 * hash + Float.floatToIntBits(this.depth);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final DockStyle other = (DockStyle) obj;
+        return this.lockscaling == other.lockscaling
+                && this.dock == other.dock
+                && Objects.equals(this.anchor, other.anchor)
+                && Float.floatToIntBits(this.x) == Float.floatToIntBits(other.x)
+                && Float.floatToIntBits(this.y) == Float.floatToIntBits(other.y)
+                && Float.floatToIntBits(this.z) == Float.floatToIntBits(other.z)
+                && Float.floatToIntBits(this.width) == Float.floatToIntBits(other.width)
+                && Float.floatToIntBits(this.height) == Float.floatToIntBits(other.height)
+                && Float.floatToIntBits(this.depth) == Float.floatToIntBits(other.depth);
+    }
+    
+    /**
+     * Devuelve el numero de modificaciones que ha sufrido este estilo.
+     * @return Un int como valor.
+     */
+    public int getModCount() {
+        return modCount;
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.math.Vector3f;
+
+/**
+ * Estado de las animaciones de un {@link DockControl}: un canal por cada
+ * valor animable del estilo (desplazamiento, dimensiones y profundidad),
+ * cada uno con su duracion y funcion de aceleracion. Todo el estado se
+ * guarda en arreglos primitivos que se reutilizan, por lo que animar no
+ * genera basura.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+final class DockTween {
+    
+    /*
+        Canales.
+    */
+    static final int X      = 0;
+    static final int Y      = 1;
+    static final int WIDTH  = 2;
+    static final int HEIGHT = 3;
+    static final int DEPTH  = 4;
+    private static final int CHANNELS = 5;
+    
+    /*
+        Estado de cada canal.
+    */
+    private final float[] from     = new float[CHANNELS];
+    private final float[] to       = new float[CHANNELS];
+    private final float[] time     = new float[CHANNELS];
+    private final float[] duration = new float[CHANNELS];
+    private final Easing[] easings = new Easing[CHANNELS];
+    
+    /** Canales activos, un bit por canal. */
+    private int active;
+    
+    /** Dimensiones preferidas que se animan, Lemur guarda la referencia. */
+    final Vector3f preferredSize = new Vector3f();
+    
+    /**
+     * Dimensiones preferidas que tenia el componente antes de animarlas,
+     * se restauran (con el valor final) al terminar o cancelar.
+     */
+    Vector3f previousSize;
+
+    /*
+        Constructor de la clase.
+    */
+    DockTween() {
+    }
+    
+    /*
+        Inicia un canal.
+    */
+    void start(int channel, float from, float to, float duration, Easing easing) {
+        if (!(duration >= 0.0F)) {
+            throw new IllegalArgumentException("Duration=[" + duration);
+        }
+        this.from[channel]     = from;
+        this.to[channel]       = to;
+        this.time[channel]     = 0.0F;
+        this.duration[channel] = duration;
+        this.easings[channel]  = easing == null ? Easing.Linear : easing;
+        this.active |= 1 << channel;
+    }
+    
+    /*
+        Avanza los canales activos, devuelve los canales que cambiaron.
+        Los valores se leen con value(channel).
+    */
+    int advance(float tpf) {
+        final int changed = active;
+        for (int c = 0; c < CHANNELS; c++) {
+            if ((active & (1 << c)) == 0)
+                continue;
+            
+            time[c] += tpf;
+            if (time[c] >= duration[c]) {
+                time[c] = duration[c];
+                active &= ~(1 << c);
+            }
+        }
+        return changed;
+    }
+    
+    /*
+        Valor actual de un canal.
+    */
+    float value(int channel) {
+        final float d = duration[channel];
+        final float t = d <= 0.0F ? 1.0F : time[channel] / d;
+        return from[channel] + (to[channel] - from[channel]) * easings[channel].apply(t);
+    }
+    
+    /*
+        Detiene todos los canales, si 'complete' los deja en su destino.
+        Devuelve los canales que estaban activos.
+    */
+    int stop(boolean complete) {
+        final int stopped = active;
+        if (complete) {
+            for (int c = 0; c < CHANNELS; c++) {
+                time[c] = duration[c];
+            }
+        }
+        active = 0;
+        return stopped;
+    }
+    
+    boolean isActive() {
+        return active != 0;
+    }
+    
+    boolean isActive(int channel) {
+        return has(active, channel);
+    }
+    
+    static boolean has(int mask, int channel) {
+        return (mask & (1 << channel)) != 0;
+    }
+}
@@ -18,19 +18,20 @@ package org.jnightride.jgui.core;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
 
-import com.simsilica.lemur.Container;
 import com.simsilica.lemur.Panel;
 import com.simsilica.lemur.component.AbstractGuiComponent;
 import com.simsilica.lemur.core.GuiControl;
 import com.simsilica.lemur.core.GuiLayout;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.IdentityHashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.function.Supplier;
 import javax.annotation.Nonnull;
 
 import org.jnightride.jgui.Scalable;
+import org.jnightride.jgui.ScaleContext;
 
 /**
  * Clase encargado de gestionar un layout dinamico.
@@ -38,12 +39,25 @@ import org.jnightride.jgui.Scalable;
  */
 public class DynamicLayout<E extends Panel> extends AbstractGuiComponent 
                                 implements GuiLayout, Cloneable {
+    
+    /**
+     * Marca para los parametros de {@link #addChild(Node, Object...)}: el
+     * nodo no se agrega al grafo de escena ni se diseña hasta que se
+     * muestre por primera vez ({@link DockControl#setVisible(boolean)}) o
+     * hasta que un frame libre lo materialice.
+     */
+    public static final Object DEFERRED = new Object() {
+        @Override
+        public String toString() {
+            return "DEFERRED";
+        }
+    };
 
     /**
-     * Mapa o diccionario donde agregaremos los diferentes nodos
-     * hijos del componente padre.
+     * Almacenamiento donde agregaremos los diferentes nodos hijos del
+     * componente padre, en orden de insercion.
      */
-    private final Map<Node, DockControl> children = new IdentityHashMap<>();
+    private final ChildStore children = new ChildStore();
     
     /**
      * Ventana principal donde se vizualizan todos los componentes
@@ -51,6 +65,59 @@ public class DynamicLayout<E extends Panel> extends AbstractGuiComponent
      */
     private final Scalable<E> rootPane;
     
+    /**
+     * Determina si algun componente de este subarbol quedo marcado como
+     * sucio desde la ultima pasada de diseño.
+     */
+    private boolean layoutPending = true;
+    
+    /**
+     * Dimensiones con las que se ejecuto la ultima pasada, si cambian todos
+     * los componentes hijos deben recalcular su diseño.
+     */
+    private final Vector3f lastSize = new Vector3f(Float.NaN, Float.NaN, Float.NaN);
+    
+    /**
+     * Determina si un {@link LayoutScheduler} esta repartiendo el diseño
+     * de este subarbol entre varios frames; mientras tanto, {@code reshape}
+     * solo marca los componentes como sucios.
+     */
+    private boolean suspended;
+    
+    /**
+     * Determina si el diseño de este subarbol se aplazo por estar oculto o
+     * fuera de la pantalla (recorte automatico), se pone al dia con un
+     * reinicio cuando vuelve a ser visible.
+     */
+    private boolean deferred;
+    
+    /**
+     * Almacenamiento compacto de los hijos, solo existe si se habilito
+     * con {@link #setPacked(boolean)}.
+     */
+    private PackedLayout packed;
+    
+    /**
+     * Orden de resolucion de los hijos con restricciones, solo existe si
+     * algun hijo tiene {@link DockConstraints}.
+     */
+    private ConstraintSolver solver;
+    
+    /** Hijos aplazados, en orden de registro; no forman parte de los hijos. */
+    private final List<LazyChild> lazyChildren = new ArrayList<>();
+    
+    /**
+     * Determina si este subarbol tiene hijos aplazados sin materializar,
+     * evita recorrer los subarboles que no tienen ninguno.
+     */
+    private boolean lazyPending;
+    
+    /*
+        Contexto de escalado con el que se ejecuto la ultima pasada.
+    */
+    private ScaleContext scaleContext;
+    private long scaleVersion;
+    
     /*
         Constructor de la clase.
     */
@@ -62,43 +129,609 @@ public class DynamicLayout<E extends Panel> extends AbstractGuiComponent
     public void calculatePreferredSize(Vector3f size) {
         DockControl control = getNode().getControl(DockControl.class);
         if (control == null) {
-            size.set(new Vector3f(1.0F, 1.0F, 0.0F));
+            size.set(1.0F, 1.0F, 0.0F);
         } else {
-            Vector3f myPref = control.getDockStyle().getSize();
-            size.set(myPref);
+            size.set(control.getLayoutWidth(), control.getLayoutHeight(), control.getLayoutDepth());
         }
     }
     
+    /**
+     * Vuelve a calcular el diseño de todos los componentes de este
+     * subarbol, esten o no marcados como sucios.
+     */
     public void restart() {
-        for (Map.Entry<Node, DockControl> entry : this.children.entrySet()) {
-            DockControl dc = entry.getValue();
+        final boolean metrics = LayoutMetrics.beginPass();
+        try {
+            deferred = false;
+            checkScale();
+            
+            if (!packedPass()) {
+                computeAndApply(true);
+            }
+            final boolean culling = isAutoCulling();
+            final ScaleContext context = currentScaleContext();
+            for (int i = 0, n = children.slots(); i < n; i++) {
+                final DockControl dc = children.controlAt(i);
+                if (dc == null)
+                    continue;
+                
+                final boolean visible = cull(dc, culling, context);
+                final DynamicLayout<?> layout = layoutOf(dc.getManagedNode());
+                if (layout == null)
+                    continue;
+                
+                if (visible) {
+                    layout.restart();
+                } else {
+                    layout.deferred = true;
+                }
+            }
+            layoutPending = false;
+        } finally {
+            // La profundidad de las metricas se restaura aunque falle.
+            if (metrics) {
+                LayoutMetrics.endPass(this);
+            }
+        }
+    }
+    
+    /**
+     * Pasada de diseño incremental: solo se actualizan los componentes
+     * marcados como sucios y solo se desciende a los subarboles que
+     * tengan cambios pendientes.
+     */
+    public void validate() {
+        final boolean rescaled = checkScale();
+        if (!layoutPending && !rescaled)
+            return;
+        
+        layoutChildren(rescaled);
+    }
+
+    @Override
+    public void reshape(Vector3f pos, Vector3f size) { 
+        final boolean resized = !lastSize.equals(size);
+        if (resized) {
+            lastSize.set(size);
+        }
+        
+        // Sincronizamos las dimensiones preferidas de los hijos, solo
+        // los que cambiaron quedan marcados como sucios.
+        for (int i = 0, n = children.slots(); i < n; i++) {
+            final DockControl dc = children.controlAt(i);
             if (dc == null)
                 continue;
             
-            dc.updateGui();
+            dc.syncLayoutSize(dc.getManagedNode().getControl(GuiControl.class).getPreferredSize());
+        }
+        
+        final boolean force = checkScale() || resized;
+        if (suspended || deferred) {
+            // El planificador (o el reinicio al volver a ser visible) se
+            // encarga de actualizar los hijos.
+            if (force) {
+                for (int i = 0, n = children.slots(); i < n; i++) {
+                    final DockControl dc = children.controlAt(i);
+                    if (dc != null) {
+                        dc.markLayoutDirty();
+                    }
+                }
+            }
+            return;
+        }
+        layoutChildren(force);
+    }
+    
+    /*
+        Recorre los hijos directos actualizando los componentes sucios y
+        desciende a los layouts hijos con cambios pendientes.
+    */
+    private void layoutChildren(boolean force) {
+        final boolean metrics = LayoutMetrics.beginPass();
+        try {
+            layoutPending = false;
+            
+            // Si todos los hijos estan sucios, una sola pasada compacta.
+            if (!(force && packedPass())) {
+                computeAndApply(force);
+            }
+            
+            // Si cambian las dimensiones, el propio GuiControl ya invoco
+            // reshape sobre el layout hijo; si cambio la escala, el layout
+            // hijo lo detecta en validate.
+            // Con el recorte automatico, los subarboles ocultos se aplazan y
+            // los que vuelven a ser visibles se ponen al dia.
+            final boolean culling = isAutoCulling();
+            final ScaleContext context = culling ? currentScaleContext() : null;
+            for (int i = 0, n = children.slots(); i < n; i++) {
+                final DockControl dc = children.controlAt(i);
+                if (dc == null)
+                    continue;
+                
+                final boolean visible = cull(dc, culling, context);
+                final DynamicLayout<?> layout = layoutOf(dc.getManagedNode());
+                if (layout == null)
+                    continue;
+                
+                if (!visible) {
+                    layout.deferred = true;
+                } else if (layout.deferred) {
+                    layout.restart();
+                } else if (force || layout.layoutPending) {
+                    layout.validate();
+                }
+            }
+        } finally {
+            if (metrics) {
+                LayoutMetrics.endPass(this);
+            }
+        }
+    }
+    
+    /*
+        Actualiza los hijos en dos recorridos: primero se calcula el
+        resultado de todos los hijos sucios (o de todos si 'all') y luego
+        se aplica, una sola escritura por nodo y solo si el valor cambio.
+    */
+    private void computeAndApply(boolean all) {
+        if (solver != null) {
+            computeConstrained(all);
+            return;
+        }
+        
+        final ScaleContext context = currentScaleContext();
+        int computed = 0, visited = 0;
+        for (int i = 0, n = children.slots(); i < n; i++) {
+            final DockControl dc = children.controlAt(i);
+            if (dc == null)
+                continue;
             
-            final Node node = entry.getKey();
-            if (node instanceof Container) {
-                GuiLayout layout = ((Container) node).getLayout();
-                if (layout instanceof DynamicLayout) {
-                    ((DynamicLayout) layout).restart();
+            visited++;
+            if (all || dc.isLayoutDirty()) {
+                dc.computeLayout(context);
+                dc.applyPending = true;
+                computed++;
+            }
+        }
+        
+        if (LayoutMetrics.isEnabled()) {
+            LayoutMetrics.recomputed(computed);
+            LayoutMetrics.skipped(visited - computed);
+        }
+        
+        for (int i = 0, n = children.slots(); i < n; i++) {
+            final DockControl dc = children.controlAt(i);
+            if (dc != null && dc.applyPending) {
+                dc.applyPending = false;
+                dc.applyLayout(context);
+            }
+        }
+    }
+    
+    /*
+        Igual que computeAndApply, pero en el orden del solucionador: un
+        hijo tambien se resuelve si un hermano de referencia cambio.
+    */
+    private void computeConstrained(boolean all) {
+        final ScaleContext context = currentScaleContext();
+        final List<DockControl> order = solver.order(children);
+        
+        int computed = 0;
+        for (int i = 0, n = order.size(); i < n; i++) {
+            final DockControl dc = order.get(i);
+            if (all || dc.isLayoutDirty() || dc.isSiblingChanged()) {
+                solver.compute(dc, context);
+                dc.applyPending = true;
+                computed++;
+            } else {
+                dc.resultChanged = false;
+            }
+        }
+        
+        if (LayoutMetrics.isEnabled()) {
+            LayoutMetrics.recomputed(computed);
+            LayoutMetrics.skipped(order.size() - computed);
+        }
+        
+        for (int i = 0, n = order.size(); i < n; i++) {
+            final DockControl dc = order.get(i);
+            dc.resultChanged = false;
+            if (dc.applyPending) {
+                dc.applyPending = false;
+                dc.applyLayout(context);
+            }
+        }
+    }
+    
+    /*
+        Determina si algun hijo tiene restricciones, el layout los resuelve
+        en el orden del solucionador.
+    */
+    boolean hasConstraints() {
+        return solver != null;
+    }
+    
+    /*
+        Las restricciones de un hijo cambiaron, si cambiaron las
+        alineaciones el orden de resolucion se vuelve a generar.
+    */
+    void constraintsChanged(boolean order) {
+        if (solver == null) {
+            solver = new ConstraintSolver();
+        } else if (order) {
+            solver.invalidate();
+        }
+    }
+    
+    /*
+        Pasada sobre el almacenamiento compacto: carga los estilos que
+        cambiaron, resuelve todos los hijos en un solo bucle y aplica el
+        resultado. Devuelve 'false' si no se pudo utilizar.
+    */
+    private boolean packedPass() {
+        final ScaleContext context = currentScaleContext();
+        if (packed == null || context == null || solver != null)
+            return false;
+        
+        final Node node = getNode();
+        final DockControl owner = node == null 
+                                    ? null : node.getControl(DockControl.class);
+        
+        packed.sync();
+        packed.compute(context, 
+                       owner == null ? 0.0F : owner.getWidth(), 
+                       owner == null ? 0.0F : owner.getHeight(), 
+                       owner != null && owner.isLockScaling());
+        packed.apply(context);
+        
+        if (LayoutMetrics.isEnabled()) {
+            LayoutMetrics.recomputed(packed.size());
+        }
+        return true;
+    }
+    
+    /**
+     * Habilita o deshabilita el almacenamiento compacto de los hijos. Con
+     * el habilitado, las pasadas que recalculan todos los hijos (reinicios
+     * y cambios de escala o de dimensiones) se resuelven en un solo bucle
+     * sobre arreglos primitivos; util para layouts con miles de hijos.
+     * 
+     * @param packed {@code true} para habilitarlo.
+     */
+    public void setPacked(boolean packed) {
+        if (packed == isPacked())
+            return;
+        
+        if (packed) {
+            this.packed = new PackedLayout();
+            for (int i = 0, n = children.slots(); i < n; i++) {
+                final DockControl dc = children.controlAt(i);
+                if (dc != null) {
+                    this.packed.add(dc);
                 }
             }
+        } else {
+            this.packed.clear();
+            this.packed = null;
+        }
+    }
+    
+    public boolean isPacked() {
+        return packed != null;
+    }
+    
+    /*
+        Actualiza el recorte automatico de un hijo ya diseñado, devuelve
+        'true' si su subarbol se debe diseñar.
+    */
+    private static boolean cull(DockControl dc, boolean culling, ScaleContext context) {
+        if (culling) {
+            return dc.updateCulling(context);
+        }
+        if (dc.isAutoCulled()) {
+            dc.clearCulling();
+        }
+        return true;
+    }
+    
+    private boolean isAutoCulling() {
+        return rootPane != null && rootPane.isAutoCulling();
+    }
+    
+    /**
+     * Determina si el diseño de este subarbol esta aplazado hasta que
+     * vuelva a ser visible.
+     * @return Un valor booleano.
+     */
+    public boolean isLayoutDeferred() {
+        return deferred;
+    }
+    
+    /*
+        Prepara el layout para un reinicio externo (ver ParallelLayout),
+        igual que al inicio de restart(): deja de estar aplazado y
+        actualiza su contexto de escalado.
+    */
+    void beginRestart() {
+        deferred = false;
+        checkScale();
+    }
+    
+    /*
+        Actualiza el recorte automatico de un hijo ya aplicado en un
+        reinicio externo, igual que restart(): si no es visible, su
+        subarbol se aplaza y devuelve 'false'.
+    */
+    boolean restartVisible(DockControl dc, ScaleContext context) {
+        if (cull(dc, isAutoCulling(), context))
+            return true;
+        
+        final DynamicLayout<?> layout = layoutOf(dc.getManagedNode());
+        if (layout != null) {
+            layout.deferred = true;
         }
+        return false;
+    }
+    
+    /*
+        Comprueba si el contexto de escalado cambio desde la ultima pasada.
+    */
+    boolean checkScale() {
+        if (rootPane == null)
+            return false;
+        
+        ScaleContext context = rootPane.getScaleContext();
+        if (context == scaleContext 
+                && context.getVersion() == scaleVersion) {
+            return false;
+        }
+        
+        scaleContext = context;
+        scaleVersion = context.getVersion();
+        return true;
+    }
+    
+    /**
+     * Notifica que uno de los componentes hijos quedo marcado como sucio,
+     * la marca se propaga hacia los layouts padres hasta encontrar uno que
+     * ya tenga cambios pendientes.
+     */
+    void childInvalidated() {
+        if (layoutPending)
+            return;
+        
+        layoutPending = true;
+        invalidate();
+        
+        final Node node = getNode();
+        if (node != null) {
+            final DynamicLayout<?> layout = layoutOf(node.getParent());
+            if (layout != null) {
+                layout.childInvalidated();
+            }
+        }
+    }
+    
+    /*
+        Contexto de escalado actual del contenedor raiz.
+    */
+    ScaleContext currentScaleContext() {
+        return rootPane == null ? null : rootPane.getScaleContext();
+    }
+    
+    /*
+        Suspende o reanuda las pasadas de diseño de este layout, al
+        reanudarse el planificador ya actualizo todos los hijos.
+    */
+    void setSuspended(boolean suspended) {
+        this.suspended = suspended;
+        if (!suspended) {
+            this.layoutPending = false;
+        }
+    }
+    
+    /*
+        Controles de los hijos, para uso interno del paquete.
+    */
+    Collection<DockControl> controls() {
+        return solver == null 
+                ? this.children.controls() : solver.order(children);
+    }
+    
+    /**
+     * Determina si este subarbol tiene cambios de diseño pendientes.
+     * @return Un valor booleano.
+     */
+    public boolean isLayoutPending() {
+        return layoutPending;
+    }
+    
+    /**
+     * Devuelve el {@code DynamicLayout} de un nodo si lo tiene.
+     * @param node nodo a consultar.
+     * @return Layout del nodo, de lo contrario <code>null</code>.
+     */
+    static DynamicLayout<?> layoutOf(Node node) {
+        if (node == null)
+            return null;
+        
+        GuiControl control = node.getControl(GuiControl.class);
+        if (control == null)
+            return null;
+        
+        GuiLayout layout = control.getLayout();
+        if (layout instanceof DynamicLayout) {
+            return (DynamicLayout<?>) layout;
+        }
+        return null;
     }
 
-    @Override
-    public void reshape(Vector3f pos, Vector3f size) { 
-        for (final Map.Entry<?, ?> entry : this.children.entrySet()) {
-            if (entry.getValue() == null)
+    /**
+     * Registra un hijo aplazado: la fabrica no se invoca hasta que el hijo
+     * se muestre por primera vez ({@link LazyChild#setVisible(boolean)}) o
+     * hasta que un frame libre lo materialice.
+     * 
+     * @param supplier fabrica del nodo hijo.
+     * @param constraints parametros del hijo.
+     * @return Hijo aplazado.
+     */
+    public LazyChild addLazy(@Nonnull Supplier<? extends Node> supplier, Object... constraints) {
+        final LazyChild child = new LazyChild(this, supplier, withoutDeferred(constraints));
+        lazyChildren.add(child);
+        lazyAdded();
+        return child;
+    }
+    
+    /**
+     * Elimina un hijo aplazado sin materializarlo.
+     * @param child hijo aplazado.
+     */
+    public void removeLazy(LazyChild child) {
+        if (lazyChildren.remove(child)) {
+            release(child);
+        }
+    }
+    
+    /**
+     * Devuelve los hijos aplazados que todavia no se materializaron.
+     * @return Coleccion de solo lectura.
+     */
+    public Collection<LazyChild> getLazyChildren() {
+        return Collections.unmodifiableList(lazyChildren);
+    }
+    
+    /**
+     * Materializa los hijos aplazados de este subarbol (ocultos) hasta
+     * agotar el presupuesto de tiempo; al menos uno por invocacion si hay
+     * alguno pendiente.
+     * 
+     * @param budgetNanos presupuesto en nanosegundos.
+     * @return Numero de hijos materializados.
+     */
+    public int realizeDeferred(long budgetNanos) {
+        return realizeDeferred(System.nanoTime() + budgetNanos, true);
+    }
+    
+    /*
+        Materializa los hijos aplazados hasta la fecha limite, primero los
+        propios y despues los de los subarboles con hijos pendientes.
+    */
+    private int realizeDeferred(long deadline, boolean first) {
+        if (!lazyPending)
+            return 0;
+        
+        int realized = 0;
+        while (!lazyChildren.isEmpty() 
+                && (first && realized == 0 || System.nanoTime() < deadline)) {
+            lazyChildren.get(0).realize(false);
+            realized++;
+        }
+        
+        boolean pending = !lazyChildren.isEmpty();
+        for (int i = 0, n = children.slots(); i < n; i++) {
+            final DockControl dc = children.controlAt(i);
+            if (dc == null)
                 continue;
             
-            DockControl control = (DockControl) entry.getValue();
-            GuiControl guiControl  = ((Node) entry.getKey()).getControl(GuiControl.class);
+            final DynamicLayout<?> layout = layoutOf(dc.getManagedNode());
+            if (layout == null || !layout.lazyPending)
+                continue;
             
-            control.getDockStyle().setSize(guiControl.getPreferredSize().clone());
-            control.updateGui();
+            realized += layout.realizeDeferred(deadline, first && realized == 0);
+            pending |= layout.lazyPending;
         }
+        lazyPending = pending;
+        return realized;
+    }
+    
+    /**
+     * Determina si este subarbol tiene hijos aplazados sin materializar.
+     * @return Un valor booleano.
+     */
+    public boolean hasDeferred() {
+        return lazyPending;
+    }
+    
+    /*
+        Propaga la marca de hijos aplazados hacia los layouts padres.
+    */
+    private void lazyAdded() {
+        if (lazyPending)
+            return;
+        
+        lazyPending = true;
+        final Node node = getNode();
+        if (node != null) {
+            final DynamicLayout<?> layout = layoutOf(node.getParent());
+            if (layout != null) {
+                layout.lazyAdded();
+            }
+        }
+    }
+    
+    /*
+        Un hijo aplazado se esta materializando, deja de estar pendiente.
+    */
+    void realized(LazyChild child) {
+        lazyChildren.remove(child);
+    }
+    
+    /*
+        Desvincula el control de un nodo aplazado ya construido.
+    */
+    private static void release(LazyChild child) {
+        final Node held = child.getHeldNode();
+        final DockControl dc = held == null ? null : held.getControl(DockControl.class);
+        if (dc != null && dc.lazy == child) {
+            dc.lazy = null;
+        }
+    }
+    
+    /*
+        Parametros sin la marca DEFERRED.
+    */
+    private static Object[] withoutDeferred(Object... constraints) {
+        int n = 0;
+        for (final Object element : constraints) {
+            if (element != DEFERRED) {
+                n++;
+            }
+        }
+        if (n == constraints.length)
+            return constraints;
+        
+        final Object[] filtered = new Object[n];
+        n = 0;
+        for (final Object element : constraints) {
+            if (element != DEFERRED) {
+                filtered[n++] = element;
+            }
+        }
+        return filtered;
+    }
+    
+    /*
+        Determina si los parametros llevan la marca DEFERRED.
+    */
+    private static boolean isDeferred(Object... constraints) {
+        for (final Object element : constraints) {
+            if (element == DEFERRED) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /*
+        Hijo aplazado que gestiona un nodo ya construido.
+    */
+    private LazyChild lazyOf(Node n) {
+        for (final LazyChild child : lazyChildren) {
+            if (child.getHeldNode() == n) {
+                return child;
+            }
+        }
+        return null;
     }
 
     @Override
@@ -109,8 +742,34 @@ public class DynamicLayout<E extends Panel> extends AbstractGuiComponent
         if (t == null)
             return null;
         
-        if (children.containsKey(t))
+        final LazyChild previous = lazyOf(t);
+        if (previous != null) {
+            removeLazy(previous);
+        }
+        if (isDeferred(constraints) && !children.contains(t)) {
+            // El nodo ya existe, pero no se conecta ni se diseña hasta
+            // mostrarse; su control recibe el setVisible(true).
+            final LazyChild lazy = new LazyChild(this, new LazyChild.Holder(t), withoutDeferred(constraints));
+            DockControl dc = t.getControl(DockControl.class);
+            if (dc == null) {
+                dc = new DockControl(rootPane, styleOf(lazy.getConstraints()));
+                t.addControl(dc);
+            }
+            dc.lazy = lazy;
+            lazyChildren.add(lazy);
+            lazyAdded();
+            return t;
+        }
+        
+        final DockStyle newConstraints = styleOf(constraints);
+        if (children.contains(t)) {
+            // Volver a agregar un hijo con los mismos parametros no
+            // modifica nada.
+            if (matches(t.getControl(DockControl.class).getDockStyle(), newConstraints, constraints))
+                return t;
+            
             removeChild(t);
+        }
         
         DockStyle args = null;
         DockControl newFreeControl;
@@ -119,32 +778,75 @@ public class DynamicLayout<E extends Panel> extends AbstractGuiComponent
             newFreeControl = t.getControl(DockControl.class);
             args = newFreeControl.getDockStyle();
         } else {
-            newFreeControl = new DockControl(rootPane, new DockStyle(constraints));
+            newFreeControl = new DockControl(rootPane, newConstraints);
+            t.addControl(newFreeControl);
         }
         
-        t.addControl(newFreeControl);
-        children.put(t, newFreeControl);
+        children.add(t, newFreeControl);
+        if (packed != null) {
+            packed.add(newFreeControl);
+        }
+        if (newFreeControl.hasConstraints()) {
+            constraintsChanged(true);
+        }
+        if (solver != null) {
+            solver.invalidate();
+        }
         
         if (getGuiControl() != null) {
             getGuiControl().getNode().attachChild(t);
             newFreeControl.attach();
             
             if ( args != null ) {
-                DockStyle newConstraints = new DockStyle(constraints);
-                if ( !args.equals(newConstraints) ) {
+                if ( !matches(args, newConstraints, constraints) ) {
                     newFreeControl.setDockStyle(newConstraints);
                 }
             }
         }
         
+        // Subarbol con hijos aplazados construido antes de agregarse.
+        final DynamicLayout<?> layout = layoutOf(t);
+        if (layout != null && layout.lazyPending) {
+            lazyAdded();
+        }
+        
         invalidate();
         return t;
     }
+    
+    /*
+        Estilo de los parametros: un estilo compartido (inmutable) se
+        utiliza tal cual, de lo contrario se genera uno nuevo.
+    */
+    private static DockStyle styleOf(Object... constraints) {
+        for (final Object element : constraints) {
+            if (element instanceof DockStyle && ((DockStyle) element).isFrozen()) {
+                return (DockStyle) element;
+            }
+        }
+        return new DockStyle(constraints);
+    }
+    
+    /*
+        Determina si un estilo corresponde con los parametros: si entre
+        ellos hay un estilo se compara todo, de lo contrario solo el
+        escalado, el dock y el anclaje (las dimensiones se sincronizan con
+        las preferidas del componente).
+    */
+    private static boolean matches(DockStyle style, DockStyle newConstraints, Object... constraints) {
+        for (final Object element : constraints) {
+            if (element instanceof DockStyle) {
+                return style.equals(newConstraints);
+            }
+        }
+        return style.sameConstraints(newConstraints);
+    }
 
     @Override
     public void detach(GuiControl parent) {
         super.detach(parent);
-        for (final Node child : getChildren()) {
+        for (int i = 0, n = children.slots(); i < n; i++) {
+            final Node child = children.nodeAt(i);
             if (child == null)
                 continue;            
             child.removeFromParent();
@@ -154,18 +856,38 @@ public class DynamicLayout<E extends Panel> extends AbstractGuiComponent
     @Override
     public void attach(GuiControl parent) {
         super.attach(parent);
-        for (final Node child : getChildren()) {
+        for (int i = 0, n = children.slots(); i < n; i++) {
+            final Node child = children.nodeAt(i);
             if (child == null)
                 continue;
             getNode().attachChild(child);
-            child.getControl(DockControl.class).attach();
+            children.controlAt(i).attach();
         }
     }
 
     @Override
     public void removeChild(Node n) {
-        if (children.remove(n) == null)
+        final LazyChild lazy = lazyOf(n);
+        if (lazy != null) {
+            removeLazy(lazy);
             return;
+        }
+        
+        final DockControl dc = children.remove(n);
+        if (dc == null)
+            return;
+        
+        if (packed != null) {
+            packed.remove(dc);
+        }
+        if (solver != null) {
+            solver.invalidate();
+        }
+        
+        SpatialIndex index = rootPane == null ? null : rootPane.getSpatialIndex();
+        if (index != null) {
+            index.remove(dc);
+        }
         
         /*n.removeControl(DynamicControl.class);*/
         n.removeFromParent();
@@ -174,7 +896,7 @@ public class DynamicLayout<E extends Panel> extends AbstractGuiComponent
 
     @Override
     public Collection<Node> getChildren() {
-        return Collections.unmodifiableSet(this.children.keySet());
+        return this.children.nodes();
     }
 
     @Override
@@ -182,14 +904,30 @@ public class DynamicLayout<E extends Panel> extends AbstractGuiComponent
         if (this.children == null)
             return;
         
-        for (final Map.Entry<?, ?> entry : this.children.entrySet()) {
-            if (entry.getKey() == null)
+        SpatialIndex index = rootPane == null ? null : rootPane.getSpatialIndex();
+        for (int i = 0, n = children.slots(); i < n; i++) {
+            final Node child = children.nodeAt(i);
+            if (child == null)
                 continue;
             
-            ((Node) entry.getKey()).removeFromParent();
-            /*((Node) entry.getKey()).removeControl(DynamicControl.class);*/
+            if (index != null) {
+                index.remove(children.controlAt(i));
+            }
+            child.removeFromParent();
+            /*child.removeControl(DynamicControl.class);*/
         }
         this.children.clear();
+        
+        if (this.packed != null) {
+            this.packed.clear();
+        }
+        this.solver = null;
+        
+        for (final LazyChild lazy : lazyChildren) {
+            release(lazy);
+        }
+        this.lazyChildren.clear();
+        this.lazyPending = false;
     }
 
     @Override
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+/**
+ * Funciones de aceleracion para las animaciones de {@link DockControl}.
+ * Cada funcion transforma el progreso lineal {@code t} (de 0 a 1) en el
+ * progreso de la animacion.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public enum Easing {
+    
+    /** Velocidad constante. */
+    Linear {
+        @Override public float apply(float t) { return t; }
+    },
+    
+    /** Acelera desde cero. */
+    QuadIn {
+        @Override public float apply(float t) { return t * t; }
+    },
+    
+    /** Desacelera hasta cero. */
+    QuadOut {
+        @Override public float apply(float t) { return t * (2.0F - t); }
+    },
+    
+    /** Acelera hasta la mitad y luego desacelera. */
+    QuadInOut {
+        @Override public float apply(float t) { 
+            return t < 0.5F ? 2.0F * t * t : -1.0F + (4.0F - 2.0F * t) * t;
+        }
+    },
+    
+    /** Acelera desde cero (cubica). */
+    CubicIn {
+        @Override public float apply(float t) { return t * t * t; }
+    },
+    
+    /** Desacelera hasta cero (cubica). */
+    CubicOut {
+        @Override public float apply(float t) { 
+            final float f = t - 1.0F;
+            return f * f * f + 1.0F;
+        }
+    },
+    
+    /** Acelera hasta la mitad y luego desacelera (cubica). */
+    CubicInOut {
+        @Override public float apply(float t) { 
+            if (t < 0.5F) {
+                return 4.0F * t * t * t;
+            }
+            final float f = 2.0F * t - 2.0F;
+            return 0.5F * f * f * f + 1.0F;
+        }
+    },
+    
+    /** Curva sinusoidal suave. */
+    SineInOut {
+        @Override public float apply(float t) { 
+            return (float) (0.5 - 0.5 * Math.cos(Math.PI * t));
+        }
+    },
+    
+    /** Se pasa ligeramente del destino y regresa. */
+    BackOut {
+        @Override public float apply(float t) { 
+            final float s = 1.70158F, f = t - 1.0F;
+            return f * f * ((s + 1.0F) * f + s) + 1.0F;
+        }
+    };
+    
+    /**
+     * Aplica la funcion de aceleracion.
+     * @param t progreso lineal, de 0 a 1.
+     * @return Progreso de la animacion.
+     */
+    public abstract float apply(float t);
+}
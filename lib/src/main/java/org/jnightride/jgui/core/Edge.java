@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+/**
+ * Un <code>Edge</code> es un borde (o el centro) de un componente en uno
+ * de sus ejes, se utiliza para alinear un componente con un hermano
+ * ({@link DockConstraints#align(Edge, DockControl, Edge, float)}).
+ * <p>
+ * La posicion de un componente es su esquina superior izquierda y el eje
+ * 'y' crece hacia arriba, por lo que el borde inferior queda en
+ * {@code y - height}.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public enum Edge {
+    
+    // [ Edge ] :Eje horizontal.
+    Left(true, 0.0F), CenterX(true, 0.5F), Right(true, 1.0F),
+    
+    // [ Edge ] :Eje vertical.
+    Top(false, 0.0F), CenterY(false, -0.5F), Bottom(false, -1.0F);
+    
+    /** Determina si el borde pertenece al eje horizontal. */
+    private final boolean horizontal;
+    
+    /** Fraccion de las dimensiones desde la posicion hasta el borde. */
+    private final float factor;
+
+    /*
+        Constructor del enum.
+    */
+    private Edge(boolean horizontal, float factor) {
+        this.horizontal = horizontal;
+        this.factor = factor;
+    }
+    
+    /**
+     * Devuelve la coordenada del borde.
+     * @param position posicion del componente en el eje.
+     * @param size dimension del componente en el eje.
+     * @return Coordenada del borde.
+     */
+    public float of(float position, float size) {
+        return position + factor * size;
+    }
+    
+    /**
+     * Devuelve la posicion que debe tener un componente para que este
+     * borde quede en la coordenada dada.
+     * @param edge coordenada del borde.
+     * @param size dimension del componente en el eje.
+     * @return Posicion del componente en el eje.
+     */
+    public float positionOf(float edge, float size) {
+        return edge - factor * size;
+    }
+
+    public boolean isHorizontal() {
+        return horizontal;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.font.BitmapFont;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+
+/**
+ * Un <code>FontCache</code> resuelve el tamaño efectivo de las fuentes
+ * escalables (ver {@link DockControl#setFontSize(float)}).
+ * <p>
+ * Los tamaños escalados se cuantizan en intervalos de {@link #getStep()}
+ * pixeles, de modo que todas las etiquetas que resuelven al mismo intervalo
+ * comparten el mismo tamaño. Ademas, se pueden registrar variantes de una
+ * misma fuente generadas (<code>.fnt</code>) a distintos tamaños; para
+ * cada intervalo se utiliza la variante mas pequeña que no tenga que
+ * ampliarse, y el resultado queda en cache para las siguientes etiquetas.
+ * <p>
+ * La cache se utiliza desde el hilo de renderizado.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class FontCache {
+    
+    /** Cache compartida por todos los componentes. */
+    private static final FontCache DEFAULT = new FontCache();
+    
+    /**
+     * Variantes de una fuente y resultado por intervalo.
+     */
+    private static final class Family {
+        
+        /** Variantes por tamaño de generacion. */
+        final TreeMap<Integer, BitmapFont> variants = new TreeMap<>();
+        
+        /** Variante resuelta para cada intervalo. */
+        final Map<Integer, BitmapFont> resolved = new HashMap<>();
+    }
+    
+    /** Familias por nombre. */
+    private final Map<String, Family> families = new HashMap<>();
+    
+    /** Familia de cada fuente registrada. */
+    private final Map<BitmapFont, Family> fonts = new IdentityHashMap<>();
+    
+    /** Intervalo de cuantizacion, en pixeles. */
+    private float step;
+    
+    /*
+        Estadisticas de la cache.
+    */
+    private long hits, misses;
+
+    /**
+     * Genera un nuevo <code>FontCache</code> con intervalos de un pixel.
+     */
+    public FontCache() {
+        this(1.0F);
+    }
+    
+    /**
+     * Genera un nuevo <code>FontCache</code>.
+     * @param step intervalo de cuantizacion, en pixeles.
+     */
+    public FontCache(float step) {
+        setStep(step);
+    }
+    
+    /**
+     * Devuelve la cache compartida por todos los componentes.
+     * @return Un FontCache como valor.
+     */
+    public static FontCache getDefault() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Establece el intervalo de cuantizacion, las variantes resueltas se
+     * descartan.
+     * @param step intervalo en pixeles.
+     */
+    public void setStep(float step) {
+        if (!(step > 0.0F)) {
+            throw new IllegalArgumentException("Step=[" + step);
+        }
+        this.step = step;
+        for (final Family family : families.values()) {
+            family.resolved.clear();
+        }
+    }
+    
+    /**
+     * Registra una variante de una familia de fuentes; su tamaño es el de
+     * generacion de la fuente ({@code renderedSize}).
+     * 
+     * @param family nombre de la familia.
+     * @param font variante de la fuente.
+     */
+    public void register(@Nonnull String family, @Nonnull BitmapFont font) {
+        Family f = families.get(family);
+        if (f == null) {
+            f = new Family();
+            families.put(family, f);
+        }
+        
+        f.variants.put(font.getCharSet().getRenderedSize(), font);
+        f.resolved.clear();
+        fonts.put(font, f);
+    }
+    
+    /**
+     * Elimina una familia y sus variantes.
+     * @param family nombre de la familia.
+     */
+    public void unregister(String family) {
+        final Family f = families.remove(family);
+        if (f != null) {
+            fonts.values().removeIf(value -> value == f);
+        }
+    }
+    
+    /**
+     * Cuantiza un tamaño de fuente al intervalo mas cercano (como minimo,
+     * un intervalo).
+     * 
+     * @param size tamaño escalado.
+     * @return Tamaño cuantizado.
+     */
+    public float quantize(float size) {
+        return bucket(size) * step;
+    }
+    
+    /**
+     * Devuelve la variante a utilizar para un tamaño cuantizado. Si la
+     * fuente actual no pertenece a ninguna familia registrada, se devuelve
+     * la misma fuente.
+     * 
+     * @param current fuente actual de la etiqueta.
+     * @param size tamaño cuantizado.
+     * @return Una fuente como valor.
+     */
+    public BitmapFont resolve(BitmapFont current, float size) {
+        final Family family = current == null ? null : fonts.get(current);
+        if (family == null)
+            return current;
+        
+        final int bucket = bucket(size);
+        BitmapFont font = family.resolved.get(bucket);
+        if (font != null) {
+            hits++;
+            return font;
+        }
+        
+        // La variante mas pequeña que no se tenga que ampliar, o la
+        // mas grande si ninguna alcanza el tamaño.
+        misses++;
+        final Map.Entry<Integer, BitmapFont> entry = family.variants.ceilingEntry((int) Math.ceil(size));
+        font = entry != null ? entry.getValue() : family.variants.lastEntry().getValue();
+        family.resolved.put(bucket, font);
+        return font;
+    }
+    
+    /**
+     * Reinicia las estadisticas.
+     */
+    public void resetStats() {
+        hits   = 0L;
+        misses = 0L;
+    }
+    
+    private int bucket(float size) {
+        return Math.max(1, Math.round(size / step));
+    }
+    
+    // Getters.
+    public float getStep()  { return step; }
+    public long getHits()   { return hits; }
+    public long getMisses() { return misses; }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+/**
+ * Un <code>LayoutCache</code> guarda los ultimos diseños resueltos de un
+ * {@link DockControl} por intervalo de escala (ver 
+ * {@link org.jnightride.jgui.ScaleQuantizer}); al volver a un intervalo
+ * conocido (por ejemplo, al alternar entre ventana y pantalla completa) el
+ * resultado se reutiliza en lugar de volver a calcularlo.
+ * <p>
+ * Cada entrada recuerda todo aquello de lo que depende el resultado: el
+ * intervalo, el estilo y su version, las dimensiones sincronizadas del
+ * componente, y las dimensiones y el escalado del padre. Las entradas se reemplazan en orden circular.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+final class LayoutCache {
+    
+    /** Numero de intervalos que se recuerdan. */
+    static final int CAPACITY = 4;
+    
+    /*
+        Claves de cada entrada.
+    */
+    private final long[] buckets = new long[CAPACITY];
+    private final DockStyle[] styles = new DockStyle[CAPACITY];
+    private final int[] versions = new int[CAPACITY];
+    private final float[] widths  = new float[CAPACITY],
+                          heights = new float[CAPACITY],
+                          depths  = new float[CAPACITY];
+    private final float[] parentWidths  = new float[CAPACITY],
+                          parentHeights = new float[CAPACITY];
+    private final boolean[] parentLocked = new boolean[CAPACITY],
+                            parents      = new boolean[CAPACITY];
+    
+    /** Resultado de cada entrada. */
+    private final LayoutResult[] results = new LayoutResult[CAPACITY];
+    
+    /*
+        Entradas ocupadas y siguiente entrada a reemplazar.
+    */
+    private int size, next;
+
+    /*
+        Constructor de la clase.
+    */
+    LayoutCache() {
+        for (int i = 0; i < CAPACITY; i++) {
+            results[i] = new LayoutResult();
+        }
+    }
+    
+    /*
+        Busca un resultado, si existe lo copia en 'store' y devuelve 'true'.
+    */
+    boolean get(long bucket, DockStyle style, float width, float height, float depth,
+                float parentWidth, float parentHeight, boolean locked, boolean hasParent, 
+                LayoutResult store) {
+        for (int i = 0; i < size; i++) {
+            if (buckets[i] == bucket && styles[i] == style 
+                    && versions[i] == style.getModCount()
+                    && widths[i] == width && heights[i] == height 
+                    && depths[i] == depth
+                    && parentWidths[i] == parentWidth 
+                    && parentHeights[i] == parentHeight
+                    && parentLocked[i] == locked && parents[i] == hasParent) {
+                store.set(results[i]);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /*
+        Guarda un resultado.
+    */
+    void put(long bucket, DockStyle style, float width, float height, float depth,
+                float parentWidth, float parentHeight, boolean locked, boolean hasParent, 
+                LayoutResult result) {
+        final int i = next;
+        next = (next + 1) % CAPACITY;
+        if (size < CAPACITY) {
+            size++;
+        }
+        
+        buckets[i]       = bucket;
+        styles[i]        = style;
+        versions[i]      = style.getModCount();
+        widths[i]        = width;
+        heights[i]       = height;
+        depths[i]        = depth;
+        parentWidths[i]  = parentWidth;
+        parentHeights[i] = parentHeight;
+        parentLocked[i]  = locked;
+        parents[i]       = hasParent;
+        results[i].set(result);
+    }
+}
@@ -0,0 +1,469 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.export.Savable;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+
+import com.simsilica.lemur.Container;
+import com.simsilica.lemur.Label;
+import com.simsilica.lemur.Panel;
+import com.simsilica.lemur.style.ElementId;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+import org.jnightride.jgui.Scalable;
+
+/**
+ * Un <code>LayoutDescriptor</code> es la descripcion binaria de un arbol
+ * de componentes gestionado por {@link DynamicLayout}: tipo y nombre de
+ * cada componente, su {@link DockStyle} (dock, anclaje, desplazamientos,
+ * dimensiones, escalado y profundidad), su numero de hijos y, si lo
+ * tiene, el texto ({@link Label}) y el estilo de <code>Lemur</code>
+ * (identificador del elemento y nombre del estilo). Las restricciones
+ * entre hermanos ({@link DockConstraints}) no forman parte del estilo y no
+ * se guardan.
+ * <p>
+ * Se exporta e importa con el {@code JmeExporter}/{@code JmeImporter} de
+ * <code>jme3</code>. Los componentes se guardan en preorden en arreglos
+ * primitivos, de modo que la lectura y la creacion del arbol son un solo
+ * recorrido secuencial.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class LayoutDescriptor implements Savable {
+    
+    /**
+     * Interfaz encargada de crear los componentes de un descriptor.
+     */
+    @FunctionalInterface
+    public static interface ComponentFactory {
+        
+        /**
+         * Crea un componente.
+         * @param type nombre de la clase del componente.
+         * @param name nombre del nodo, vacio si no tiene.
+         * @return Un nuevo componente.
+         */
+        Panel create(String type, String name);
+        
+        /**
+         * Crea un componente con su texto y su estilo. La implementacion
+         * predeterminada ignora el estilo y, si el componente es un
+         * {@link Label}, le asigna el texto.
+         * 
+         * @param type nombre de la clase del componente.
+         * @param name nombre del nodo, vacio si no tiene.
+         * @param text texto del componente, <code>null</code> si no tiene.
+         * @param elementId identificador del elemento, <code>null</code> si
+         *                  no tiene.
+         * @param style nombre del estilo, <code>null</code> si no tiene.
+         * @return Un nuevo componente.
+         */
+        default Panel create(String type, String name, String text, String elementId, String style) {
+            final Panel panel = create(type, name);
+            if (text != null && panel instanceof Label) {
+                ((Label) panel).setText(text);
+            }
+            return panel;
+        }
+    }
+    
+    /*
+        Valores de cada componente en el arreglo de datos: anclaje (x, y,
+        pivotX, pivotY), posicion (x, y, z) y dimensiones (w, h, d).
+    */
+    private static final int STRIDE = 10;
+    
+    /*
+        Banderas de cada componente, el ordinal del dock ocupa los bits
+        a partir de DOCK_SHIFT.
+    */
+    private static final int FLAG_LOCK      = 1;
+    private static final int FLAG_ANCHOR    = 1 << 1;
+    private static final int FLAG_CONTAINER = 1 << 2;
+    private static final int FLAG_TEXT      = 1 << 3;
+    private static final int DOCK_SHIFT     = 8;
+    
+    /** Valores del dock, indexados por ordinal. */
+    private static final Dock[] DOCKS = Dock.values();
+    
+    /**
+     * Fabrica predeterminada, por reflexion. Con texto, intenta los
+     * constructores {@code (String, ElementId, String)} y {@code (String)}
+     * (como los de {@code Label} o {@code Button}); sin texto, los
+     * constructores {@code (ElementId, String)} y {@code (String)} con el
+     * estilo (como los de {@code Container}). Si no existen, el
+     * constructor sin parametros. Los constructores que se encuentran se
+     * guardan en cache por tipo.
+     */
+    public static final ComponentFactory REFLECTIVE = new ComponentFactory() {
+        private final Map<String, Constructor<? extends Panel>> constructors = new HashMap<>();
+        
+        @Override
+        public Panel create(String type, String name) {
+            return create(type, name, null, null, null);
+        }
+
+        @Override
+        public Panel create(String type, String name, String text, String elementId, String style) {
+            try {
+                final Class<? extends Panel> clazz = Class.forName(type).asSubclass(Panel.class);
+                
+                Panel panel = null;
+                if (text != null && elementId != null) {
+                    final Constructor<? extends Panel> c = constructor(clazz, String.class, ElementId.class, String.class);
+                    if (c != null) {
+                        panel = c.newInstance(text, new ElementId(elementId), style);
+                    }
+                }
+                if (panel == null && text != null) {
+                    final Constructor<? extends Panel> c = constructor(clazz, String.class);
+                    if (c != null) {
+                        panel = c.newInstance(text);
+                    }
+                }
+                
+                // En una etiqueta, el parametro String es el texto.
+                final boolean label = Label.class.isAssignableFrom(clazz);
+                if (panel == null && text == null && !label && elementId != null) {
+                    final Constructor<? extends Panel> c = constructor(clazz, ElementId.class, String.class);
+                    if (c != null) {
+                        panel = c.newInstance(new ElementId(elementId), style);
+                    }
+                }
+                if (panel == null && text == null && !label && style != null) {
+                    final Constructor<? extends Panel> c = constructor(clazz, String.class);
+                    if (c != null) {
+                        panel = c.newInstance(style);
+                    }
+                }
+                if (panel == null) {
+                    final Constructor<? extends Panel> c = constructor(clazz);
+                    if (c == null) {
+                        throw new IllegalArgumentException("Type=[" + type);
+                    }
+                    panel = c.newInstance();
+                    if (text != null && panel instanceof Label) {
+                        ((Label) panel).setText(text);
+                    }
+                }
+                
+                if (name != null && !name.isEmpty()) {
+                    panel.setName(name);
+                }
+                return panel;
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IllegalArgumentException("Type=[" + type, e);
+            }
+        }
+        
+        /*
+            Constructor publico con los parametros dados, null si no
+            existe.
+        */
+        private Constructor<? extends Panel> constructor(Class<? extends Panel> clazz, Class<?>... parameters) {
+            final String key = clazz.getName() + Arrays.toString(parameters);
+            if (constructors.containsKey(key)) {
+                return constructors.get(key);
+            }
+            
+            Constructor<? extends Panel> c;
+            try {
+                c = clazz.getConstructor(parameters);
+            } catch (NoSuchMethodException e) {
+                c = null;
+            }
+            constructors.put(key, c);
+            return c;
+        }
+    };
+    
+    /*
+        Datos de cada componente, en preorden.
+    */
+    private String[] types = new String[0];
+    private String[] names = new String[0];
+    private String[] texts = new String[0];
+    private String[] elementIds = new String[0];
+    private String[] styles = new String[0];
+    private int[] childCounts = new int[0];
+    private int[] flags = new int[0];
+    private float[] data = new float[0];
+
+    /**
+     * Constructor de la clase para uso interno (serializacion).
+     */
+    protected LayoutDescriptor() {
+    }
+    
+    /**
+     * Genera el descriptor de un layout y todos sus descendientes.
+     * @param layout layout a describir.
+     * @return Un LayoutDescriptor como valor.
+     */
+    public static LayoutDescriptor of(@Nonnull DynamicLayout<?> layout) {
+        final List<DockControl> controls = new ArrayList<>();
+        final List<Integer> counts = new ArrayList<>();
+        collect(layout, controls, counts);
+        
+        final LayoutDescriptor descriptor = new LayoutDescriptor();
+        final int n = controls.size();
+        descriptor.types = new String[n];
+        descriptor.names = new String[n];
+        descriptor.texts = new String[n];
+        descriptor.elementIds = new String[n];
+        descriptor.styles = new String[n];
+        descriptor.childCounts = new int[n];
+        descriptor.flags = new int[n];
+        descriptor.data  = new float[n * STRIDE];
+        
+        for (int i = 0; i < n; i++) {
+            final DockControl dc = controls.get(i);
+            final Node node = dc.getManagedNode();
+            final DockStyle style = dc.getDockStyle();
+            final Anchor anchor = style.getAnchor();
+            
+            descriptor.types[i] = node.getClass().getName();
+            descriptor.names[i] = node.getName() == null ? "" : node.getName();
+            descriptor.texts[i] = "";
+            descriptor.elementIds[i] = "";
+            descriptor.styles[i] = "";
+            
+            boolean text = false;
+            if (node instanceof Label) {
+                final String value = ((Label) node).getText();
+                if (value != null) {
+                    descriptor.texts[i] = value;
+                    text = true;
+                }
+            }
+            if (node instanceof Panel) {
+                final Panel panel = (Panel) node;
+                final ElementId elementId = panel.getElementId();
+                if (elementId != null && elementId.getId() != null) {
+                    descriptor.elementIds[i] = elementId.getId();
+                }
+                if (panel.getStyle() != null) {
+                    descriptor.styles[i] = panel.getStyle();
+                }
+            }
+            
+            descriptor.childCounts[i] = counts.get(i);
+            descriptor.flags[i] = (style.isLockscaling() ? FLAG_LOCK : 0)
+                                | (style.hasCustomAnchor() ? FLAG_ANCHOR : 0)
+                                | (DynamicLayout.layoutOf(node) != null ? FLAG_CONTAINER : 0)
+                                | (text ? FLAG_TEXT : 0)
+                                | (style.getDock().ordinal() << DOCK_SHIFT);
+            
+            final int o = i * STRIDE;
+            descriptor.data[o]     = anchor.getX();
+            descriptor.data[o + 1] = anchor.getY();
+            descriptor.data[o + 2] = anchor.getPivotX();
+            descriptor.data[o + 3] = anchor.getPivotY();
+            descriptor.data[o + 4] = style.getX();
+            descriptor.data[o + 5] = style.getY();
+            descriptor.data[o + 6] = style.getZ();
+            descriptor.data[o + 7] = dc.getLayoutWidth();
+            descriptor.data[o + 8] = dc.getLayoutHeight();
+            descriptor.data[o + 9] = dc.getLayoutDepth();
+        }
+        return descriptor;
+    }
+    
+    /*
+        Recorre el arbol en preorden, guardando el numero de hijos de cada
+        componente.
+    */
+    private static void collect(DynamicLayout<?> layout, List<DockControl> controls, List<Integer> counts) {
+        for (final DockControl dc : layout.controls()) {
+            final int index = controls.size();
+            controls.add(dc);
+            counts.add(0);
+            
+            final DynamicLayout<?> sub = DynamicLayout.layoutOf(dc.getManagedNode());
+            if (sub != null) {
+                counts.set(index, sub.controls().size());
+                collect(sub, controls, counts);
+            }
+        }
+    }
+    
+    /**
+     * Crea los componentes del descriptor con la fabrica predeterminada y
+     * los agrega al contenedor dado.
+     * 
+     * @param parent contenedor padre, debe utilizar un {@code DynamicLayout}.
+     * @param scalable contenedor raiz.
+     */
+    public void instantiate(@Nonnull Container parent, @Nonnull Scalable<? extends Panel> scalable) {
+        instantiate(parent, scalable, REFLECTIVE);
+    }
+    
+    /**
+     * Crea los componentes del descriptor y los agrega al contenedor dado,
+     * en un solo recorrido de los datos.
+     * 
+     * @param parent contenedor padre, debe utilizar un {@code DynamicLayout}.
+     * @param scalable contenedor raiz.
+     * @param factory fabrica de componentes.
+     */
+    public void instantiate(@Nonnull Container parent, @Nonnull Scalable<? extends Panel> scalable,
+                            @Nonnull ComponentFactory factory) {
+        final Vector3f tmp = new Vector3f();
+        int index = 0;
+        while (index < types.length) {
+            index = instantiate(index, parent, scalable, factory, tmp);
+        }
+    }
+    
+    /*
+        Crea el componente 'index' y sus descendientes, devuelve el indice
+        del siguiente componente.
+    */
+    private int instantiate(int index, Container parent, Scalable<? extends Panel> scalable, 
+                            ComponentFactory factory, Vector3f tmp) {
+        final Panel panel = factory.create(types[index], names[index], 
+                                           (flags[index] & FLAG_TEXT) != 0 ? texts[index] : null,
+                                           elementIds[index].isEmpty() ? null : elementIds[index],
+                                           styles[index].isEmpty() ? null : styles[index]);
+        final DockStyle style = styleAt(index, tmp);
+        
+        // Las dimensiones del estilo se sincronizan con las preferidas,
+        // Lemur guarda la referencia del vector.
+        if (style.getWidth() != 0.0F || style.getHeight() != 0.0F) {
+            panel.setPreferredSize(style.getSize());
+        }
+        
+        if ((flags[index] & FLAG_CONTAINER) != 0) {
+            if (!(panel instanceof Container)) {
+                throw new IllegalArgumentException("Container=[" + types[index]);
+            }
+            ((Container) panel).setLayout(new DynamicLayout<>(scalable));
+        }
+        parent.addChild(panel, style);
+        
+        int next = index + 1;
+        for (int i = 0; i < childCounts[index]; i++) {
+            next = instantiate(next, (Container) panel, scalable, factory, tmp);
+        }
+        return next;
+    }
+    
+    /*
+        Genera el estilo de un componente.
+    */
+    DockStyle styleAt(int index, Vector3f tmp) {
+        final int f = flags[index], o = index * STRIDE;
+        final DockStyle style = new DockStyle(DOCKS[f >>> DOCK_SHIFT], 
+                                              (f & FLAG_LOCK) != 0);
+        if ((f & FLAG_ANCHOR) != 0) {
+            style.setAnchor(Anchor.of(data[o], data[o + 1], data[o + 2], data[o + 3]));
+        }
+        style.setLocation(data[o + 4], data[o + 5]);
+        style.setDepth(data[o + 6]);
+        style.setSize(tmp.set(data[o + 7], data[o + 8], data[o + 9]));
+        return style;
+    }
+    
+    /*
+        Tipo, texto (null si no tiene) e identificador del elemento de un
+        componente.
+    */
+    String typeAt(int index) {
+        return types[index];
+    }
+    String textAt(int index) {
+        return (flags[index] & FLAG_TEXT) != 0 ? texts[index] : null;
+    }
+    String elementIdAt(int index) {
+        return elementIds[index];
+    }
+    
+    /*
+        Numero de hijos directos de un componente.
+    */
+    int childCountAt(int index) {
+        return childCounts[index];
+    }
+    
+    /**
+     * Numero de componentes del descriptor.
+     * @return Un int como valor.
+     */
+    public int size() {
+        return types.length;
+    }
+
+    @Override
+    public void write(JmeExporter ex) throws IOException {
+        OutputCapsule out = ex.getCapsule(this);
+        out.write(types, "types", null);
+        out.write(names, "names", null);
+        out.write(texts, "texts", null);
+        out.write(elementIds, "elementIds", null);
+        out.write(styles, "styles", null);
+        out.write(childCounts, "childCounts", null);
+        out.write(flags, "flags", null);
+        out.write(data, "data", null);
+    }
+
+    @Override
+    public void read(JmeImporter im) throws IOException {
+        InputCapsule in = im.getCapsule(this);
+        types = in.readStringArray("types", new String[0]);
+        names = in.readStringArray("names", new String[types.length]);
+        texts = in.readStringArray("texts", empty(types.length));
+        elementIds = in.readStringArray("elementIds", empty(types.length));
+        styles = in.readStringArray("styles", empty(types.length));
+        childCounts = in.readIntArray("childCounts", new int[types.length]);
+        flags = in.readIntArray("flags", new int[types.length]);
+        data  = in.readFloatArray("data", new float[types.length * STRIDE]);
+        
+        if (names.length != types.length || texts.length != types.length
+                || elementIds.length != types.length || styles.length != types.length
+                || childCounts.length != types.length
+                || flags.length != types.length || data.length != types.length * STRIDE) {
+            throw new IOException("Corrupted layout descriptor.");
+        }
+    }
+    
+    /*
+        Arreglo de cadenas vacias, para los descriptores sin texto ni
+        estilo.
+    */
+    private static String[] empty(int length) {
+        final String[] array = new String[length];
+        Arrays.fill(array, "");
+        return array;
+    }
+}
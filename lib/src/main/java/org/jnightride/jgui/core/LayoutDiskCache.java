@@ -0,0 +1,323 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.scene.Node;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+
+import org.jnightride.jgui.AppSize;
+import org.jnightride.jgui.ScaleContext;
+
+/**
+ * Un <code>LayoutDiskCache</code> guarda en disco el diseño resuelto de
+ * un arbol de componentes, para aplicarlo directamente en el siguiente
+ * inicio sin volver a calcularlo.
+ * <p>
+ * El archivo es binario y compacto: una cabecera con la resolucion de
+ * pantalla ({@link AppSize}), las dimensiones y factores de escala del
+ * contenedor raiz y un hash de la estructura de la interfaz, seguida del
+ * resultado de cada componente en preorden y una suma de verificacion. Al
+ * cargarlo se lee de una sola vez; si algo no coincide, la carga se
+ * rechaza y se debe reiniciar el diseño de forma normal.
+ * <p>
+ * El archivo se reemplaza con un movimiento atomico (si el sistema de
+ * archivos lo permite), de modo que un lector nunca ve un archivo a
+ * medio reemplazar.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class LayoutDiskCache {
+    
+    /** Logger de la clase. */
+    private static final Logger LOG = Logger.getLogger(LayoutDiskCache.class.getName());
+    
+    /** Identificador del formato ("JGLC"). */
+    private static final int MAGIC = 0x4A474C43;
+    
+    /** Version del formato. */
+    private static final int FORMAT_VERSION = 1;
+    
+    /*
+        Tamaño de la cabecera, de cada componente y de la suma de 
+        verificacion, en bytes.
+    */
+    private static final int HEADER_BYTES = 4 + 4 + 6 * 4 + 8 + 4;
+    private static final int ENTRY_BYTES  = 6 * 4;
+    private static final int CRC_BYTES    = 8;
+    
+    /** Archivo de la cache. */
+    private final Path file;
+
+    /**
+     * Genera un nuevo <code>LayoutDiskCache</code>.
+     * @param file archivo de la cache.
+     */
+    public LayoutDiskCache(@Nonnull Path file) {
+        this.file = file;
+    }
+    
+    /**
+     * Guarda el diseño resuelto actual de un layout. Se debe invocar 
+     * despues de un reinicio completo.
+     * 
+     * @param layout layout del contenedor raiz.
+     * @param appSize resolucion de pantalla.
+     * @return {@code true} si se guardo, de lo contrario {@code false}.
+     */
+    public boolean save(@Nonnull DynamicLayout<?> layout, @Nonnull AppSize appSize) {
+        final ScaleContext context = layout.currentScaleContext();
+        if (context == null)
+            return false;
+        
+        final List<DockControl> controls = collect(layout, new ArrayList<>());
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + controls.size() * ENTRY_BYTES + CRC_BYTES);
+        buffer.putInt(MAGIC)
+              .putInt(FORMAT_VERSION)
+              .putFloat(appSize.getWidth())
+              .putFloat(appSize.getHeight())
+              .putFloat(context.getWidth())
+              .putFloat(context.getHeight())
+              .putFloat(context.getScaleFactorWidth())
+              .putFloat(context.getScaleFactorHeight())
+              .putLong(structureHash(layout))
+              .putInt(controls.size());
+        
+        for (final DockControl dc : controls) {
+            final LayoutResult r = dc.getLayoutResult();
+            buffer.putFloat(r.getX())
+                  .putFloat(r.getY())
+                  .putFloat(r.getZ())
+                  .putFloat(r.getWidth())
+                  .putFloat(r.getHeight())
+                  .putFloat(r.getDepth());
+        }
+        buffer.putLong(checksum(buffer, buffer.position()));
+        
+        // Se escribe en un archivo temporal y se reemplaza, de modo que
+        // nunca quede una cache a medio escribir.
+        try {
+            final Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            
+            final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, buffer.array());
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, 
+                                      StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, " [ Cache ] :Unable to write {0}.", file);
+            return false;
+        }
+    }
+    
+    /**
+     * Aplica el diseño guardado si corresponde a la misma resolucion,
+     * escala y estructura de la interfaz.
+     * 
+     * @param layout layout del contenedor raiz.
+     * @param appSize resolucion de pantalla.
+     * @return {@code true} si se aplico, {@code false} si la cache no
+     *          existe o no es valida y se debe reiniciar el diseño.
+     */
+    public boolean load(@Nonnull DynamicLayout<?> layout, @Nonnull AppSize appSize) {
+        if (!Files.isRegularFile(file))
+            return false;
+        
+        layout.checkScale();
+        final ScaleContext context = layout.currentScaleContext();
+        if (context == null)
+            return false;
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_BYTES + CRC_BYTES || size > Integer.MAX_VALUE)
+                return false;
+            
+            // El archivo es pequeño, se lee completo en memoria: una
+            // proyeccion (mmap) mantendria el archivo bloqueado en algunos
+            // sistemas hasta que se libere el buffer.
+            final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0)
+                    return false;
+            }
+            buffer.flip();
+            
+            if (buffer.getInt() != MAGIC 
+                    || buffer.getInt() != FORMAT_VERSION
+                    || Float.compare(buffer.getFloat(), appSize.getWidth()) != 0
+                    || Float.compare(buffer.getFloat(), appSize.getHeight()) != 0
+                    || Float.compare(buffer.getFloat(), context.getWidth()) != 0
+                    || Float.compare(buffer.getFloat(), context.getHeight()) != 0
+                    || Float.compare(buffer.getFloat(), context.getScaleFactorWidth()) != 0
+                    || Float.compare(buffer.getFloat(), context.getScaleFactorHeight()) != 0
+                    || buffer.getLong() != structureHash(layout)) {
+                return false;
+            }
+            
+            final List<DockControl> controls = collect(layout, new ArrayList<>());
+            final int count = buffer.getInt();
+            if (count != controls.size() 
+                    || size != HEADER_BYTES + (long) count * ENTRY_BYTES + CRC_BYTES) {
+                return false;
+            }
+            
+            final int end = HEADER_BYTES + count * ENTRY_BYTES;
+            if (buffer.getLong(end) != checksum(buffer, end)) {
+                LOG.log(Level.WARNING, " [ Cache ] :Corrupted layout cache {0}.", file);
+                return false;
+            }
+            
+            buffer.position(HEADER_BYTES);
+            for (final DockControl dc : controls) {
+                dc.getLayoutResult().set(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), 
+                                         buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+            }
+            apply(layout, context);
+            return true;
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, " [ Cache ] :Unable to read {0}.", file);
+            return false;
+        }
+    }
+    
+    /**
+     * Elimina el archivo de la cache.
+     * @return {@code true} si existia, de lo contrario {@code false}.
+     */
+    public boolean delete() {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Calcula un hash (FNV-1a de 64 bits) de la estructura de un layout:
+     * tipo de cada componente, su estilo y numero de hijos, en preorden.
+     * 
+     * @param layout layout a recorrer.
+     * @return Un long como valor.
+     */
+    public static long structureHash(@Nonnull DynamicLayout<?> layout) {
+        return hash(layout, 0xCBF29CE484222325L);
+    }
+    
+    private static long hash(DynamicLayout<?> layout, long h) {
+        h = mix(h, layout.controls().size());
+        for (final DockControl dc : layout.controls()) {
+            final Node node = dc.getManagedNode();
+            final DockStyle style = dc.getDockStyle();
+            final Anchor anchor = style.getAnchor();
+            
+            h = mix(h, node == null ? 0 : node.getClass().getName().hashCode());
+            h = mix(h, Float.floatToIntBits(anchor.getX()));
+            h = mix(h, Float.floatToIntBits(anchor.getY()));
+            h = mix(h, Float.floatToIntBits(anchor.getPivotX()));
+            h = mix(h, Float.floatToIntBits(anchor.getPivotY()));
+            h = mix(h, Float.floatToIntBits(style.getX()));
+            h = mix(h, Float.floatToIntBits(style.getY()));
+            h = mix(h, Float.floatToIntBits(style.getZ()));
+            h = mix(h, Float.floatToIntBits(dc.getLayoutWidth()));
+            h = mix(h, Float.floatToIntBits(dc.getLayoutHeight()));
+            h = mix(h, Float.floatToIntBits(dc.getLayoutDepth()));
+            h = mix(h, style.isLockscaling() ? 1 : 0);
+            h = mix(h, dc.hasParent() ? 1 : 0);
+            
+            final DynamicLayout<?> sub = DynamicLayout.layoutOf(node);
+            h = sub == null ? mix(h, -1) : hash(sub, h);
+        }
+        return h;
+    }
+    
+    private static long mix(long h, int value) {
+        for (int i = 0; i < 4; i++) {
+            h ^= (value >>> (i * 8)) & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+    
+    /*
+        Componentes del arbol en preorden.
+    */
+    private static List<DockControl> collect(DynamicLayout<?> layout, List<DockControl> store) {
+        for (final DockControl dc : layout.controls()) {
+            store.add(dc);
+            
+            final DynamicLayout<?> sub = DynamicLayout.layoutOf(dc.getManagedNode());
+            if (sub != null) {
+                collect(sub, store);
+            }
+        }
+        return store;
+    }
+    
+    /*
+        Aplica los resultados cargados, con los layouts suspendidos para que
+        los cambios de dimensiones no vuelvan a calcular los hijos.
+    */
+    private static void apply(DynamicLayout<?> layout, ScaleContext context) {
+        layout.checkScale();
+        layout.setSuspended(true);
+        for (final DockControl dc : layout.controls()) {
+            final DynamicLayout<?> sub = DynamicLayout.layoutOf(dc.getManagedNode());
+            if (sub != null) {
+                sub.setSuspended(true);
+            }
+            
+            dc.applyLayout(context);
+            
+            if (sub != null) {
+                apply(sub, context);
+            }
+        }
+        layout.setSuspended(false);
+    }
+    
+    private static long checksum(ByteBuffer buffer, int length) {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer view = buffer.duplicate();
+        view.position(0).limit(length);
+        crc.update(view);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Punto de acceso a las metricas del motor de diseño: numero de pasadas,
+ * invocaciones de {@code updateGui}, tiempo de cada pasada, profundidad
+ * alcanzada y componentes recalculados frente a omitidos.
+ * <p>
+ * La recoleccion esta deshabilitada de forma predeterminada; mientras lo
+ * este, cada punto de medicion se reduce a leer un campo {@code volatile}.
+ * Los resultados se pueden consultar con {@link #getStats()}, recibir con
+ * un {@link LayoutMetricsListener} o publicar por JMX con 
+ * {@link #registerMBean()}.
+ * <p>
+ * Las pasadas de diseño se ejecutan en el hilo de renderizado, por lo que
+ * el estado de la pasada en curso no esta sincronizado.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class LayoutMetrics {
+    
+    /** Logger de la clase. */
+    private static final Logger LOG = Logger.getLogger(LayoutMetrics.class.getName());
+    
+    /** Nombre con el que se registra el MBean. */
+    public static final String OBJECT_NAME = "org.jnightride.jgui:type=LayoutStats";
+    
+    /** Estadisticas acumuladas. */
+    private static final LayoutStats STATS = new LayoutStats();
+    
+    /** Oyentes de las pasadas. */
+    private static final List<LayoutMetricsListener> LISTENERS = new CopyOnWriteArrayList<>();
+    
+    /** Determina si la recoleccion esta habilitada. */
+    private static volatile boolean enabled;
+    
+    /*
+        Estado de la pasada en curso (hilo de renderizado).
+    */
+    private static int depth, maxDepth;
+    private static int recomputed, skipped;
+    private static long passStart;
+    
+    private LayoutMetrics() {}
+    
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    
+    public static void setEnabled(boolean enabled) {
+        LayoutMetrics.enabled = enabled;
+    }
+    
+    /**
+     * Devuelve las estadisticas acumuladas.
+     * @return Un LayoutStats como valor.
+     */
+    public static LayoutStats getStats() {
+        return STATS;
+    }
+    
+    public static void addListener(@Nonnull LayoutMetricsListener listener) {
+        LISTENERS.add(listener);
+    }
+    
+    public static void removeListener(LayoutMetricsListener listener) {
+        LISTENERS.remove(listener);
+    }
+    
+    /**
+     * Registra las estadisticas en el servidor de MBeans de la plataforma
+     * con el nombre {@link #OBJECT_NAME}.
+     * 
+     * @return {@code true} si se registro, de lo contrario {@code false}.
+     */
+    public static boolean registerMBean() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(STATS, name);
+            }
+            return true;
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, " [ Metrics ] :Unable to register {0}.", OBJECT_NAME);
+            return false;
+        }
+    }
+    
+    /**
+     * Elimina el registro de las estadisticas del servidor de MBeans.
+     */
+    public static void unregisterMBean() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, " [ Metrics ] :Unable to unregister {0}.", OBJECT_NAME);
+        }
+    }
+    
+    /*
+        Inicio de una pasada (o de un nivel anidado), devuelve 'false' si
+        la recoleccion esta deshabilitada y no se debe invocar endPass.
+    */
+    static boolean beginPass() {
+        if (!enabled)
+            return false;
+        
+        if (depth++ == 0) {
+            passStart  = System.nanoTime();
+            maxDepth   = 0;
+            recomputed = 0;
+            skipped    = 0;
+        }
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+        return true;
+    }
+    
+    /*
+        Fin de una pasada, al cerrar la mas externa se registra.
+    */
+    static void endPass(DynamicLayout<?> layout) {
+        if (--depth > 0)
+            return;
+        
+        final long nanos = System.nanoTime() - passStart;
+        STATS.recordPass(nanos, recomputed, skipped, maxDepth);
+        for (final LayoutMetricsListener listener : LISTENERS) {
+            listener.layoutPassCompleted(layout, nanos, recomputed, skipped, maxDepth);
+        }
+    }
+    
+    static void recomputed(int count) {
+        recomputed += count;
+    }
+    
+    static void skipped(int count) {
+        skipped += count;
+    }
+    
+    static void updateGui() {
+        STATS.recordUpdateGui();
+    }
+    
+    /**
+     * Registra el reinicio de un contenedor raiz, si la recoleccion esta
+     * habilitada.
+     */
+    public static void restarted() {
+        if (enabled) {
+            STATS.recordRestart();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+/**
+ * Interfaz encargada de recibir las metricas de cada pasada de diseño, ver
+ * {@link LayoutMetrics#addListener(LayoutMetricsListener)}.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public interface LayoutMetricsListener {
+    
+    /**
+     * Se invoca al terminar cada pasada de diseño (las pasadas anidadas
+     * forman parte de la pasada que las inicio).
+     * 
+     * @param layout layout que inicio la pasada.
+     * @param nanos duracion de la pasada en nanosegundos.
+     * @param recomputed componentes recalculados.
+     * @param skipped componentes omitidos por seguir siendo validos.
+     * @param depth mayor profundidad de layouts anidados alcanzada.
+     */
+    void layoutPassCompleted(DynamicLayout<?> layout, long nanos, int recomputed, int skipped, int depth);
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+/**
+ * Un <code>LayoutResult</code> almacena el diseño resuelto de un
+ * componente: dimensiones ya escaladas y traslacion local final.
+ * <p>
+ * Es un objeto plano, sin ninguna referencia al grafo de escena; la fase
+ * de calculo lo llena (incluso fuera del hilo de renderizado) y la fase de
+ * aplicacion lo escribe sobre el nodo.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class LayoutResult {
+    
+    /*
+        Traslacion local del nodo.
+    */
+    float x, y, z;
+    
+    /*
+        Dimensiones escaladas del componente.
+    */
+    float width, height, depth;
+
+    /**
+     * Genera un nuevo resultado vacio.
+     */
+    public LayoutResult() {
+    }
+    
+    /*
+        Establece todos los valores del resultado.
+    */
+    void set(float x, float y, float z, float width, float height, float depth) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.width  = width;
+        this.height = height;
+        this.depth  = depth;
+    }
+    
+    /**
+     * Copia los valores de otro resultado.
+     * @param other resultado a copiar.
+     */
+    public void set(LayoutResult other) {
+        set(other.x, other.y, other.z, other.width, other.height, other.depth);
+    }
+
+    /*
+        Determina si otro resultado tiene los mismos valores.
+    */
+    boolean sameAs(LayoutResult other) {
+        return x == other.x && y == other.y && z == other.z 
+                && width == other.width && height == other.height && depth == other.depth;
+    }
+
+    @Override
+    public String toString() {
+        return "LayoutResult{" + "x=" + x + ", y=" + y + ", z=" + z 
+                + ", width=" + width + ", height=" + height + ", depth=" + depth + '}';
+    }
+    
+    // Getters.
+    public float getX()      { return x; }
+    public float getY()      { return y; }
+    public float getZ()      { return z; }
+    public float getWidth()  { return width; }
+    public float getHeight() { return height; }
+    public float getDepth()  { return depth; }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.scene.Spatial;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Un <code>LayoutScheduler</code> reparte el reinicio del diseño de un
+ * {@link DynamicLayout} entre varios frames, procesando en cada uno los
+ * componentes que quepan en un presupuesto de tiempo.
+ * <p>
+ * Los componentes se recorren por niveles, de modo que un padre siempre se
+ * procesa antes que sus hijos; los componentes visibles se procesan antes
+ * que los ocultos. Mediante un {@link LayoutListener} se puede seguir el
+ * progreso y saber cuando el diseño quedo completo, por ejemplo para no
+ * mostrar un panel hasta entonces.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public class LayoutScheduler {
+    
+    /**
+     * Interfaz encargada de recibir el progreso de un reinicio repartido
+     * entre varios frames.
+     */
+    public static interface LayoutListener {
+        
+        /**
+         * Se invoca al final de cada frame con componentes procesados.
+         * @param scheduler planificador.
+         * @param completed componentes procesados.
+         * @param total componentes totales.
+         */
+        void layoutProgress(LayoutScheduler scheduler, int completed, int total);
+        
+        /**
+         * Se invoca una vez que todos los componentes fueron procesados.
+         * @param scheduler planificador.
+         */
+        void layoutCompleted(LayoutScheduler scheduler);
+    }
+    
+    /** Layout a reiniciar. */
+    private final DynamicLayout<?> layout;
+    
+    /*
+        Colas de trabajo: componentes visibles y ocultos.
+    */
+    private final ArrayDeque<DockControl> visibleQueue = new ArrayDeque<>();
+    private final ArrayDeque<DockControl> hiddenQueue  = new ArrayDeque<>();
+    
+    /** Layouts suspendidos durante el reinicio. */
+    private final List<DynamicLayout<?>> suspended = new ArrayList<>();
+    
+    /** Oyentes del progreso. */
+    private final List<LayoutListener> listeners = new ArrayList<>();
+    
+    /** Presupuesto de tiempo por frame, en nanosegundos. */
+    private long frameBudget;
+    
+    /*
+        Progreso del reinicio actual.
+    */
+    private int completed, total;
+    private boolean running;
+
+    /**
+     * Genera un nuevo planificador.
+     * 
+     * @param layout layout a reiniciar.
+     * @param frameBudget presupuesto por frame en milisegundos.
+     */
+    public LayoutScheduler(@Nonnull DynamicLayout<?> layout, float frameBudget) {
+        this.layout = layout;
+        this.setFrameBudget(frameBudget);
+    }
+    
+    /**
+     * Comienza un nuevo reinicio, si habia uno en curso se descarta.
+     */
+    public void start() {
+        cancel();
+        
+        layout.checkScale();
+        suspend(layout);
+        
+        total     = count(layout);
+        completed = 0;
+        running   = true;
+        enqueue(layout.controls(), false);
+    }
+    
+    /**
+     * Descarta el reinicio en curso; los componentes no procesados quedan
+     * marcados como sucios para la siguiente pasada.
+     */
+    public void cancel() {
+        // Primero se reanudan los layouts, de lo contrario descartarian
+        // la invalidacion de los componentes pendientes.
+        resume();
+        for (final DockControl dc : visibleQueue) {
+            invalidate(dc);
+        }
+        for (final DockControl dc : hiddenQueue) {
+            invalidate(dc);
+        }
+        visibleQueue.clear();
+        hiddenQueue.clear();
+        running = false;
+    }
+    
+    /*
+        Invalida un componente no procesado y todo su subarbol (sus hijos
+        aun no estaban en la cola); la invalidacion llega hasta la raiz.
+    */
+    private static void invalidate(DockControl dc) {
+        dc.invalidateLayout();
+        
+        final DynamicLayout<?> sub = DynamicLayout.layoutOf(dc.getManagedNode());
+        if (sub != null) {
+            for (final DockControl child : sub.controls()) {
+                invalidate(child);
+            }
+        }
+    }
+    
+    /**
+     * Procesa componentes hasta agotar el presupuesto del frame.
+     * @return {@code true} si el reinicio quedo completo.
+     */
+    public boolean update() {
+        return update(frameBudget);
+    }
+    
+    /**
+     * Procesa componentes hasta agotar el presupuesto dado. Siempre se
+     * procesa al menos un componente, de modo que el reinicio avanza aunque
+     * el presupuesto sea muy pequeño.
+     * 
+     * @param budget presupuesto en nanosegundos.
+     * @return {@code true} si el reinicio quedo completo.
+     */
+    public boolean update(long budget) {
+        if (!running)
+            return true;
+        
+        final long start = System.nanoTime();
+        do {
+            boolean hidden = false;
+            DockControl dc = visibleQueue.pollFirst();
+            if (dc == null) {
+                dc = hiddenQueue.pollFirst();
+                hidden = true;
+            }
+            if (dc == null)
+                break;
+            
+            // Suspendemos el layout hijo para que el cambio de dimensiones
+            // no lo reinicie de golpe, sus hijos pasan a la cola.
+            final DynamicLayout<?> sub = DynamicLayout.layoutOf(dc.getManagedNode());
+            if (sub != null) {
+                suspend(sub);
+            }
+            
+            dc.updateGui();
+            completed++;
+            
+            if (sub != null) {
+                enqueue(sub.controls(), hidden);
+            }
+        } while (System.nanoTime() - start < budget);
+        
+        if (visibleQueue.isEmpty() && hiddenQueue.isEmpty()) {
+            finish();
+            return true;
+        }
+        
+        for (final LayoutListener listener : listeners) {
+            listener.layoutProgress(this, completed, total);
+        }
+        return false;
+    }
+    
+    /*
+        Finaliza el reinicio y notifica a los oyentes.
+    */
+    private void finish() {
+        resume();
+        running = false;
+        
+        for (final LayoutListener listener : listeners) {
+            listener.layoutProgress(this, completed, total);
+        }
+        for (final LayoutListener listener : listeners) {
+            listener.layoutCompleted(this);
+        }
+    }
+    
+    /*
+        Agrega los controles a la cola que corresponda segun su visibilidad.
+    */
+    private void enqueue(Collection<DockControl> controls, boolean parentHidden) {
+        for (final DockControl dc : controls) {
+            if (dc == null)
+                continue;
+            
+            if (parentHidden || dc.getSpatial().getCullHint() == Spatial.CullHint.Always) {
+                hiddenQueue.addLast(dc);
+            } else {
+                visibleQueue.addLast(dc);
+            }
+        }
+    }
+    
+    private void suspend(DynamicLayout<?> l) {
+        l.setSuspended(true);
+        suspended.add(l);
+    }
+    
+    private void resume() {
+        for (final DynamicLayout<?> l : suspended) {
+            l.setSuspended(false);
+        }
+        suspended.clear();
+    }
+    
+    /*
+        Cuenta los componentes de un subarbol.
+    */
+    private static int count(DynamicLayout<?> l) {
+        int count = 0;
+        for (final DockControl dc : l.controls()) {
+            if (dc == null)
+                continue;
+            
+            count++;
+            final DynamicLayout<?> sub = DynamicLayout.layoutOf(dc.getManagedNode());
+            if (sub != null) {
+                count += count(sub);
+            }
+        }
+        return count;
+    }
+    
+    public void addLayoutListener(@Nonnull LayoutListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeLayoutListener(LayoutListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Establece el presupuesto de tiempo por frame.
+     * @param frameBudget presupuesto en milisegundos.
+     */
+    public final void setFrameBudget(float frameBudget) {
+        if (Float.isNaN(frameBudget) 
+                || Float.isInfinite(frameBudget) || frameBudget <= 0.0F)
+            throw new IllegalArgumentException("FrameBudget=[" + frameBudget);
+        
+        this.frameBudget = (long) (frameBudget * 1_000_000L);
+    }
+    
+    // Getters.
+    public DynamicLayout<?> getLayout() { return layout; }
+    public float getFrameBudget()       { return frameBudget / 1_000_000F; }
+    public int getCompleted()           { return completed; }
+    public int getTotal()               { return total; }
+    public boolean isRunning()          { return running; }
+}
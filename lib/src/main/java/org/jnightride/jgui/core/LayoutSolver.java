@@ -0,0 +1,243 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.math.Vector3f;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+import org.jnightride.jgui.AppSize;
+import org.jnightride.jgui.ScaleContext;
+
+/**
+ * Un <code>LayoutSolver</code> resuelve el diseño de un arbol de
+ * {@link DockStyle} sin grafo de escena: no necesita nodos de
+ * <code>jme3</code>, componentes de <code>Lemur</code> ni un contexto de
+ * renderizado. Con las dimensiones del contenedor raiz y una resolucion
+ * ({@link AppSize}) devuelve los rectangulos resueltos de cada componente
+ * segun su anclaje, desplazamiento y dimensiones.
+ * <p>
+ * Sirve para precalcular diseños para muchas resoluciones, validarlos en
+ * lote desde herramientas o pruebas y entregarlos al juego sin iniciar la
+ * aplicacion. Las dimensiones de cada componente son las de su estilo; a
+ * diferencia del layout en vivo, no se sincronizan con las preferidas de
+ * un componente de {@code Lemur}. Tampoco se aplican las restricciones
+ * ({@link DockConstraints}), que pertenecen al control y no al estilo: un
+ * diseño con alineaciones o limites entre hermanos solo se resuelve en el
+ * layout en vivo.
+ * <pre><code>
+ * LayoutSolver solver = new LayoutSolver(1024, 576);
+ * int panel = solver.add(-1, new DockStyle(Dock.LeftTop));
+ * solver.add(panel, new DockStyle(Dock.Center));
+ * LayoutResult[] rects = solver.solve(new AppSize(1920, 1080));
+ * </code></pre>
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class LayoutSolver {
+    
+    /*
+        Estilos y padre de cada componente, un padre siempre se agrega
+        antes que sus hijos ('-1' para los de primer nivel).
+    */
+    private DockStyle[] styles = new DockStyle[16];
+    private int[] parents = new int[16];
+    private int size;
+    
+    /*
+        Dimensiones del contenedor raiz (sin escalar).
+    */
+    private final float width, height;
+
+    /**
+     * Genera un nuevo <code>LayoutSolver</code> vacio.
+     * @param width largo del contenedor raiz.
+     * @param height ancho del contenedor raiz.
+     */
+    public LayoutSolver(float width, float height) {
+        if (!(width > 0.0F) || Float.isInfinite(width))
+            throw new IllegalArgumentException("Width=[" + width);
+        if (!(height > 0.0F) || Float.isInfinite(height))
+            throw new IllegalArgumentException("Height=[" + height);
+        
+        this.width  = width;
+        this.height = height;
+    }
+    
+    /**
+     * Genera un <code>LayoutSolver</code> con los componentes de un
+     * descriptor.
+     * 
+     * @param descriptor descriptor del diseño.
+     * @param width largo del contenedor raiz.
+     * @param height ancho del contenedor raiz.
+     * @return Un LayoutSolver como valor.
+     */
+    public static LayoutSolver of(@Nonnull LayoutDescriptor descriptor, float width, float height) {
+        final LayoutSolver solver = new LayoutSolver(width, height);
+        final Vector3f tmp = new Vector3f();
+        int index = 0;
+        while (index < descriptor.size()) {
+            index = solver.add(descriptor, index, -1, tmp);
+        }
+        return solver;
+    }
+    
+    /*
+        Agrega el componente 'index' del descriptor y sus descendientes,
+        devuelve el indice del siguiente componente.
+    */
+    private int add(LayoutDescriptor descriptor, int index, int parent, Vector3f tmp) {
+        final int self = add(parent, descriptor.styleAt(index, tmp).intern());
+        
+        int next = index + 1;
+        for (int i = 0, n = descriptor.childCountAt(index); i < n; i++) {
+            next = add(descriptor, next, self, tmp);
+        }
+        return next;
+    }
+    
+    /**
+     * Agrega un componente.
+     * @param parent indice del componente padre, {@code -1} para un
+     *                  componente de primer nivel.
+     * @param style estilo del componente.
+     * @return Indice del componente.
+     */
+    public int add(int parent, @Nonnull DockStyle style) {
+        if (parent < -1 || parent >= size)
+            throw new IllegalArgumentException("Parent=[" + parent);
+        
+        if (size == styles.length) {
+            styles  = Arrays.copyOf(styles, size * 2);
+            parents = Arrays.copyOf(parents, size * 2);
+        }
+        styles[size]  = style;
+        parents[size] = parent;
+        return size++;
+    }
+    
+    /**
+     * Resuelve el diseño para una resolucion.
+     * @param appSize resolucion de la pantalla.
+     * @return Rectangulos resueltos, uno por componente.
+     */
+    public LayoutResult[] solve(@Nonnull AppSize appSize) {
+        final ScaleContext context = new ScaleContext();
+        context.update(appSize.getWidth(), appSize.getHeight(), width, height);
+        return solve(context, null);
+    }
+    
+    /**
+     * Resuelve el diseño con un contexto de escalado ya calculado (por
+     * ejemplo, con factores ajustados por un {@code ScaleQuantizer}).
+     * 
+     * @param context contexto de escalado.
+     * @param store resultados a reutilizar, o <code>null</code> para
+     *                  generar nuevos.
+     * @return Rectangulos resueltos, uno por componente.
+     */
+    public LayoutResult[] solve(@Nonnull ScaleContext context, LayoutResult[] store) {
+        if (store == null || store.length < size) {
+            store = store == null ? new LayoutResult[size] : Arrays.copyOf(store, size);
+        }
+        
+        final float sfw = context.getScaleFactorWidth(),
+                    sfh = context.getScaleFactorHeight();
+        final float rootWidth  = context.getWidth() * sfw,
+                    rootHeight = context.getHeight() * sfh;
+        
+        for (int i = 0; i < size; i++) {
+            if (store[i] == null) {
+                store[i] = new LayoutResult();
+            }
+            
+            final DockStyle style = styles[i];
+            final int parent = parents[i];
+            final boolean nested = parent >= 0;
+            final boolean locked = nested && styles[parent].isLockscaling();
+            
+            final float w = style.getWidth() * (style.isLockscaling() ? sfh : sfw),
+                        h = style.getHeight() * sfh;
+            place(style, w, h, style.getDepth(), locked ? sfh : sfw, sfh, nested, 
+                  nested ? store[parent].width  : rootWidth,
+                  nested ? store[parent].height : rootHeight, store[i]);
+        }
+        return store;
+    }
+    
+    /**
+     * Resuelve la posicion de un componente ya escalado segun su anclaje.
+     * Es el calculo que comparten {@link DockControl} y este solucionador.
+     * 
+     * @param style estilo del componente.
+     * @param width largo escalado del componente.
+     * @param height ancho escalado del componente.
+     * @param depth profundidad del componente.
+     * @param scaleX factor de escala del desplazamiento en 'x'.
+     * @param scaleY factor de escala del desplazamiento en 'y'.
+     * @param nested {@code true} si el padre es otro componente, de lo
+     *                  contrario es el contenedor raiz.
+     * @param parentWidth largo del padre.
+     * @param parentHeight ancho del padre.
+     * @param store resultado donde se guarda el diseño.
+     */
+    static void place(DockStyle style, float width, float height, float depth, float scaleX, float scaleY,
+                      boolean nested, float parentWidth, float parentHeight, LayoutResult store) {
+        // Origen en el centro del padre; para los componentes de primer
+        // nivel, el centro del contenedor raiz.
+        final float originX = parentWidth * 0.5F,
+                    originY = nested ? -(parentHeight * 0.5F) : parentHeight * 0.5F;
+        
+        // Posicion segun el diseño, centrando el componente en ella. La
+        // profundidad se aplica al centrar el nodo y de nuevo como 
+        // desplazamiento del diseño.
+        final Anchor anchor = style.getAnchor();
+        store.set(originX + anchor.resolveX(parentWidth, width, style.getX() * scaleX) - width * 0.5F,
+                  originY + anchor.resolveY(parentHeight, height, style.getY() * scaleY) + height * 0.5F,
+                  style.getZ() + style.getZ(),
+                  width, height, depth);
+    }
+    
+    /**
+     * Numero de componentes.
+     * @return Un int como valor.
+     */
+    public int size() {
+        return size;
+    }
+    
+    public DockStyle getStyle(int index) {
+        return styles[index];
+    }
+    
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+}
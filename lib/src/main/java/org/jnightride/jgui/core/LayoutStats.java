@@ -0,0 +1,126 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de las estadisticas de diseño. Se actualizan desde el hilo de
+ * renderizado y se pueden leer desde cualquier hilo (por ejemplo, JMX).
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class LayoutStats implements LayoutStatsMBean {
+    
+    /*
+        Contadores.
+    */
+    private final AtomicLong passCount       = new AtomicLong();
+    private final AtomicLong restartCount    = new AtomicLong();
+    private final AtomicLong updateGuiCount  = new AtomicLong();
+    private final AtomicLong recomputedCount = new AtomicLong();
+    private final AtomicLong skippedCount    = new AtomicLong();
+    
+    /*
+        Tiempos.
+    */
+    private final AtomicLong totalPassNanos = new AtomicLong();
+    private final AtomicLong lastPassNanos  = new AtomicLong();
+    private final AtomicLong maxPassNanos   = new AtomicLong();
+    
+    /** Mayor profundidad alcanzada. */
+    private final AtomicInteger deepestSubtree = new AtomicInteger();
+
+    /*
+        Constructor de la clase, la instancia la gestiona LayoutMetrics.
+    */
+    LayoutStats() {
+    }
+    
+    /*
+        Registra una pasada completa.
+    */
+    void recordPass(long nanos, int recomputed, int skipped, int depth) {
+        passCount.incrementAndGet();
+        recomputedCount.addAndGet(recomputed);
+        skippedCount.addAndGet(skipped);
+        totalPassNanos.addAndGet(nanos);
+        lastPassNanos.set(nanos);
+        
+        if (nanos > maxPassNanos.get()) {
+            maxPassNanos.set(nanos);
+        }
+        if (depth > deepestSubtree.get()) {
+            deepestSubtree.set(depth);
+        }
+    }
+    
+    void recordRestart() {
+        restartCount.incrementAndGet();
+    }
+    
+    void recordUpdateGui() {
+        updateGuiCount.incrementAndGet();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return LayoutMetrics.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        LayoutMetrics.setEnabled(enabled);
+    }
+
+    @Override
+    public void reset() {
+        passCount.set(0L);
+        restartCount.set(0L);
+        updateGuiCount.set(0L);
+        recomputedCount.set(0L);
+        skippedCount.set(0L);
+        totalPassNanos.set(0L);
+        lastPassNanos.set(0L);
+        maxPassNanos.set(0L);
+        deepestSubtree.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "LayoutStats{" + "passCount=" + passCount + ", restartCount=" + restartCount 
+                + ", updateGuiCount=" + updateGuiCount + ", recomputedCount=" + recomputedCount 
+                + ", skippedCount=" + skippedCount + ", totalPassNanos=" + totalPassNanos 
+                + ", lastPassNanos=" + lastPassNanos + ", maxPassNanos=" + maxPassNanos 
+                + ", deepestSubtree=" + deepestSubtree + '}';
+    }
+    
+    // Getters.
+    @Override public long getPassCount()       { return passCount.get(); }
+    @Override public long getRestartCount()    { return restartCount.get(); }
+    @Override public long getUpdateGuiCount()  { return updateGuiCount.get(); }
+    @Override public long getRecomputedCount() { return recomputedCount.get(); }
+    @Override public long getSkippedCount()    { return skippedCount.get(); }
+    @Override public long getTotalPassNanos()  { return totalPassNanos.get(); }
+    @Override public long getLastPassNanos()   { return lastPassNanos.get(); }
+    @Override public long getMaxPassNanos()    { return maxPassNanos.get(); }
+    @Override public int getDeepestSubtree()   { return deepestSubtree.get(); }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+/**
+ * Interfaz de gestion (JMX) de las estadisticas de diseño, ver
+ * {@link LayoutMetrics#registerMBean()}.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public interface LayoutStatsMBean {
+    
+    /**
+     * Determina si la recoleccion de metricas esta habilitada.
+     * @return Un valor booleano.
+     */
+    public boolean isEnabled();
+    
+    /**
+     * Habilita o deshabilita la recoleccion de metricas.
+     * @param enabled {@code true} para habilitarla.
+     */
+    public void setEnabled(boolean enabled);
+    
+    /**
+     * Numero de pasadas de diseño (las anidadas cuentan como parte de la
+     * pasada que las inicio).
+     * @return Un long como valor.
+     */
+    public long getPassCount();
+    
+    /**
+     * Numero de reinicios de contenedores raiz.
+     * @return Un long como valor.
+     */
+    public long getRestartCount();
+    
+    /**
+     * Numero de invocaciones de {@code DockControl.updateGui()}.
+     * @return Un long como valor.
+     */
+    public long getUpdateGuiCount();
+    
+    /**
+     * Componentes cuyo diseño se volvio a calcular.
+     * @return Un long como valor.
+     */
+    public long getRecomputedCount();
+    
+    /**
+     * Componentes visitados cuyo diseño seguia siendo valido.
+     * @return Un long como valor.
+     */
+    public long getSkippedCount();
+    
+    /**
+     * Tiempo total de todas las pasadas, en nanosegundos.
+     * @return Un long como valor.
+     */
+    public long getTotalPassNanos();
+    
+    /**
+     * Tiempo de la ultima pasada, en nanosegundos.
+     * @return Un long como valor.
+     */
+    public long getLastPassNanos();
+    
+    /**
+     * Tiempo de la pasada mas lenta, en nanosegundos.
+     * @return Un long como valor.
+     */
+    public long getMaxPassNanos();
+    
+    /**
+     * Mayor profundidad de layouts anidados alcanzada en una pasada.
+     * @return Un int como valor.
+     */
+    public int getDeepestSubtree();
+    
+    /**
+     * Reinicia todos los contadores.
+     */
+    public void reset();
+}
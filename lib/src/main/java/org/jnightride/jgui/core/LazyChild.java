@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+
+import com.simsilica.lemur.core.GuiControl;
+
+import java.util.function.Supplier;
+/**
+ * Un <code>LazyChild</code> es un hijo de un {@link DynamicLayout} cuya
+ * construccion (o conexion) se aplaza: no forma parte del grafo de escena
+ * ni se diseña hasta que se hace visible por primera vez o hasta que un
+ * frame libre lo materializa ({@link DynamicLayout#realizeDeferred(long)}).
+ * <p>
+ * Se genera con {@link DynamicLayout#addLazy(Supplier, Object...)} o al
+ * agregar un nodo con la marca {@link DynamicLayout#DEFERRED}.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class LazyChild {
+    
+    /** Layout al que pertenece el hijo. */
+    private final DynamicLayout<?> layout;
+    
+    /** Fabrica del nodo, se libera al materializarse. */
+    private Supplier<? extends Node> supplier;
+    
+    /** Parametros con los que se agrega el nodo (sin la marca). */
+    private final Object[] constraints;
+    
+    /** Nodo materializado, de lo contrario <code>null</code>. */
+    private Node node;
+
+    /*
+        Constructor de la clase.
+    */
+    LazyChild(DynamicLayout<?> layout, Supplier<? extends Node> supplier, Object[] constraints) {
+        this.layout = layout;
+        this.supplier = supplier;
+        this.constraints = constraints;
+    }
+    
+    /**
+     * Construye (si hace falta) el nodo y lo agrega a su layout como un
+     * hijo visible.
+     * @return El nodo materializado.
+     */
+    public Node realize() {
+        return realize(true);
+    }
+    
+    /*
+        Materializa el nodo, si no es visible se agrega oculto: el diseño
+        se paga ahora y mostrarlo despues solo cambia su visibilidad.
+    */
+    Node realize(boolean visible) {
+        if (node != null)
+            return node;
+        
+        final Node n = supplier.get();
+        if (n == null || n.getControl(GuiControl.class) == null)
+            throw new IllegalArgumentException("Child is not GUI element.");
+        
+        final DockControl dc = n.getControl(DockControl.class);
+        if (dc != null) {
+            dc.lazy = null;
+        }
+        if (!visible) {
+            n.setCullHint(Spatial.CullHint.Always);
+        }
+        
+        node = n;
+        supplier = null;
+        layout.realized(this);
+        layout.addChild(n, constraints);
+        return n;
+    }
+    
+    /**
+     * Establece la visibilidad del hijo, al mostrarlo por primera vez se
+     * materializa; ocultar un hijo sin materializar no hace nada.
+     * 
+     * @param visible {@code true} para mostrarlo.
+     */
+    public void setVisible(boolean visible) {
+        if (node == null && !visible)
+            return;
+        
+        realize().getControl(DockControl.class).setVisible(visible);
+    }
+    
+    public boolean isRealized() {
+        return node != null;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    public DynamicLayout<?> getLayout() {
+        return layout;
+    }
+    
+    /*
+        Parametros de la solicitud, para uso interno del paquete.
+    */
+    Object[] getConstraints() {
+        return constraints;
+    }
+    
+    /*
+        Nodo ya construido que aplaza este hijo (marca DEFERRED), de lo
+        contrario null.
+    */
+    Node getHeldNode() {
+        return supplier instanceof Holder ? ((Holder) supplier).node : null;
+    }
+    
+    /*
+        Fabrica de un nodo ya construido (marca DEFERRED).
+    */
+    static final class Holder implements Supplier<Node> {
+        final Node node;
+        Holder(Node node) { this.node = node; }
+        
+        @Override
+        public Node get() {
+            return node;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import java.util.Arrays;
+
+import org.jnightride.jgui.ScaleContext;
+
+/**
+ * Un <code>PackedLayout</code> es el almacenamiento compacto (estructura de
+ * arreglos) que un {@link DynamicLayout} utiliza cuando se habilita con
+ * {@link DynamicLayout#setPacked(boolean)}.
+ * <p>
+ * Los datos de diseño de cada hijo (coeficientes del anclaje, desplazamientos,
+ * dimensiones preferidas, bits de escalado y resultado) se guardan en
+ * arreglos primitivos indexados por una ranura; una pasada es un solo
+ * bucle sobre esos arreglos, sin recorrer los objetos de cada hijo. Los
+ * estilos solo se vuelven a leer cuando cambian.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+final class PackedLayout {
+    
+    /** Capacidad inicial de los arreglos. */
+    private static final int INITIAL_CAPACITY = 16;
+    
+    /*
+        Controles y estilos de cada ranura, con la version del estilo
+        cargada en los arreglos.
+    */
+    private DockControl[] controls;
+    private DockStyle[] styles;
+    private int[] versions;
+    
+    /*
+        Coeficientes del anclaje.
+    */
+    private float[] anchorX, anchorY;
+    private float[] pivotX, pivotY;
+    private float[] directionX, directionY;
+    
+    /*
+        Desplazamientos y dimensiones preferidas.
+    */
+    private float[] offsetX, offsetY, offsetZ;
+    private float[] prefWidth, prefHeight, prefDepth;
+    
+    /*
+        Bits de escalado bloqueado y de componentes con padre.
+    */
+    private long[] lockBits, parentBits;
+    
+    /*
+        Resultado de la ultima pasada.
+    */
+    private float[] outX, outY, outZ;
+    private float[] outWidth, outHeight;
+    
+    /** Numero de ranuras ocupadas. */
+    private int size;
+
+    /*
+        Constructor de la clase.
+    */
+    PackedLayout() {
+        allocate(INITIAL_CAPACITY);
+    }
+    
+    /*
+        Agrega un control, devuelve su ranura.
+    */
+    int add(DockControl dc) {
+        if (size == controls.length) {
+            allocate(size * 2);
+        }
+        
+        final int slot = size++;
+        controls[slot] = dc;
+        styles[slot]   = null;
+        dc.packedSlot  = slot;
+        return slot;
+    }
+    
+    /*
+        Elimina un control, la ultima ranura ocupa su lugar.
+    */
+    void remove(DockControl dc) {
+        final int slot = dc.packedSlot;
+        if (slot < 0 || slot >= size || controls[slot] != dc)
+            return;
+        
+        final int last = --size;
+        if (slot != last) {
+            final DockControl moved = controls[last];
+            controls[slot] = moved;
+            styles[slot]   = null;
+            moved.packedSlot = slot;
+        }
+        controls[last] = null;
+        styles[last]   = null;
+        dc.packedSlot  = -1;
+    }
+    
+    /*
+        Elimina todos los controles.
+    */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            controls[i].packedSlot = -1;
+        }
+        Arrays.fill(controls, 0, size, null);
+        Arrays.fill(styles, 0, size, null);
+        size = 0;
+    }
+    
+    /**
+     * Vuelve a cargar en los arreglos los estilos que cambiaron.
+     */
+    void sync() {
+        for (int i = 0; i < size; i++) {
+            final DockControl dc = controls[i];
+            final DockStyle style = dc.getDockStyle();
+            if (styles[i] != style || versions[i] != style.getModCount()) {
+                load(i, style);
+            }
+            prefWidth[i]  = dc.getLayoutWidth();
+            prefHeight[i] = dc.getLayoutHeight();
+            prefDepth[i]  = dc.getLayoutDepth();
+            setBit(parentBits, i, dc.hasParent());
+        }
+    }
+    
+    /*
+        Carga un estilo en su ranura.
+    */
+    private void load(int i, DockStyle style) {
+        final Anchor anchor = style.getAnchor();
+        anchorX[i]    = anchor.getAnchorX();
+        anchorY[i]    = anchor.getAnchorY();
+        pivotX[i]     = anchor.getPivotX() - 0.5F;
+        pivotY[i]     = anchor.getPivotY() - 0.5F;
+        directionX[i] = anchor.getDirectionX();
+        directionY[i] = anchor.getDirectionY();
+        
+        offsetX[i] = style.getX();
+        offsetY[i] = style.getY();
+        offsetZ[i] = style.getZ();
+        
+        setBit(lockBits, i, style.isLockscaling());
+        
+        styles[i]   = style;
+        versions[i] = style.getModCount();
+    }
+    
+    /**
+     * Resuelve el diseño de todas las ranuras, con las mismas reglas que
+     * {@link DockControl#computeLayout(ScaleContext, float, float)}.
+     * 
+     * @param context contexto de escalado.
+     * @param parentWidth largo del contenedor del layout.
+     * @param parentHeight ancho del contenedor del layout.
+     * @param parentLocked escalado bloqueado del contenedor del layout.
+     */
+    void compute(ScaleContext context, float parentWidth, float parentHeight, boolean parentLocked) {
+        final float scaleFactorWidth  = context.getScaleFactorWidth(),
+                    scaleFactorHeight = context.getScaleFactorHeight(),
+                    rootWidth  = context.getWidth() * scaleFactorWidth,
+                    rootHeight = context.getHeight() * scaleFactorHeight;
+        
+        for (int i = 0; i < size; i++) {
+            final boolean locked    = (lockBits[i >>> 6] & (1L << i)) != 0L,
+                          hasParent = (parentBits[i >>> 6] & (1L << i)) != 0L;
+            
+            final float width  = prefWidth[i] * (locked ? scaleFactorHeight : scaleFactorWidth),
+                        height = prefHeight[i] * scaleFactorHeight;
+            
+            final float pw = hasParent ? parentWidth : rootWidth,
+                        ph = hasParent ? parentHeight : rootHeight,
+                        scaleX = hasParent && parentLocked 
+                                    ? scaleFactorHeight : scaleFactorWidth;
+            
+            final float originX = pw * 0.5F,
+                        originY = hasParent ? -(ph * 0.5F) : ph * 0.5F;
+            
+            outX[i] = originX + (anchorX[i] * pw - pivotX[i] * width + directionX[i] * (offsetX[i] * scaleX)) - width * 0.5F;
+            outY[i] = originY + (anchorY[i] * ph - pivotY[i] * height + directionY[i] * (offsetY[i] * scaleFactorHeight)) + height * 0.5F;
+            outZ[i] = offsetZ[i] + offsetZ[i];
+            outWidth[i]  = width;
+            outHeight[i] = height;
+        }
+    }
+    
+    /**
+     * Escribe el resultado de la ultima pasada sobre los componentes.
+     * @param context contexto con el que se calculo el resultado.
+     */
+    void apply(ScaleContext context) {
+        for (int i = 0; i < size; i++) {
+            final DockControl dc = controls[i];
+            dc.getLayoutResult().set(outX[i], outY[i], outZ[i], outWidth[i], outHeight[i], prefDepth[i]);
+            dc.applyLayout(context);
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /*
+        Reserva (o amplia) los arreglos.
+    */
+    private void allocate(int capacity) {
+        controls   = controls == null ? new DockControl[capacity] : Arrays.copyOf(controls, capacity);
+        styles     = styles == null ? new DockStyle[capacity] : Arrays.copyOf(styles, capacity);
+        versions   = grow(versions, capacity);
+        anchorX    = grow(anchorX, capacity);
+        anchorY    = grow(anchorY, capacity);
+        pivotX     = grow(pivotX, capacity);
+        pivotY     = grow(pivotY, capacity);
+        directionX = grow(directionX, capacity);
+        directionY = grow(directionY, capacity);
+        offsetX    = grow(offsetX, capacity);
+        offsetY    = grow(offsetY, capacity);
+        offsetZ    = grow(offsetZ, capacity);
+        prefWidth  = grow(prefWidth, capacity);
+        prefHeight = grow(prefHeight, capacity);
+        prefDepth  = grow(prefDepth, capacity);
+        outX       = grow(outX, capacity);
+        outY       = grow(outY, capacity);
+        outZ       = grow(outZ, capacity);
+        outWidth   = grow(outWidth, capacity);
+        outHeight  = grow(outHeight, capacity);
+        
+        final int words = (capacity + 63) >>> 6;
+        lockBits   = lockBits == null ? new long[words] : Arrays.copyOf(lockBits, words);
+        parentBits = parentBits == null ? new long[words] : Arrays.copyOf(parentBits, words);
+    }
+    
+    private static float[] grow(float[] array, int capacity) {
+        return array == null ? new float[capacity] : Arrays.copyOf(array, capacity);
+    }
+    
+    private static int[] grow(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+    
+    private static void setBit(long[] bits, int i, boolean value) {
+        if (value) {
+            bits[i >>> 6] |= (1L << i);
+        } else {
+            bits[i >>> 6] &= ~(1L << i);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.annotation.Nonnull;
+
+import org.jnightride.jgui.ScaleContext;
+
+/**
+ * Un <code>ParallelLayout</code> reinicia el diseño de un 
+ * {@link DynamicLayout} en dos fases:
+ * <ol>
+ * <li><b>Calculo</b>: se resuelve el {@link LayoutResult} de cada
+ * componente sin tocar el grafo de escena; los subarboles de cada layout
+ * hijo son independientes entre si y se reparten en un 
+ * {@link ForkJoinPool}.</li>
+ * <li><b>Aplicacion</b>: en el hilo que invoca {@link #restart(DynamicLayout)}
+ * (el hilo de renderizado) se escriben las dimensiones y traslaciones.</li>
+ * </ol>
+ * El hilo que invoca el reinicio queda bloqueado durante la fase de calculo,
+ * de modo que nadie modifica los estilos ni el grafo de escena mientras
+ * tanto. La estructura de los layouts se copia en ese hilo antes de
+ * repartir el calculo, las tareas solo leen la copia.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public class ParallelLayout {
+    
+    /**
+     * Los layouts con menos hijos que este umbral se calculan en el mismo
+     * hilo que su padre, repartirlos costaria mas de lo que se gana.
+     */
+    private static final int THRESHOLD = 64;
+    
+    /** Pool donde se ejecuta la fase de calculo. */
+    private final ForkJoinPool pool;
+
+    /**
+     * Genera un nuevo <code>ParallelLayout</code> que utiliza el pool
+     * comun de la JVM.
+     */
+    public ParallelLayout() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Genera un nuevo <code>ParallelLayout</code>.
+     * @param pool pool donde se ejecuta la fase de calculo.
+     */
+    public ParallelLayout(@Nonnull ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Reinicia el diseño de todo el subarbol del layout, calculando en
+     * paralelo y aplicando en el hilo actual. Al igual que 
+     * {@link DynamicLayout#restart()}, actualiza el recorte automatico y
+     * aplaza los subarboles ocultos.
+     * 
+     * @param layout layout a reiniciar.
+     */
+    public void restart(@Nonnull DynamicLayout<?> layout) {
+        // La estructura se lee en el hilo actual: recorrer los hijos puede
+        // compactar su almacenamiento y cada layout debe actualizar su
+        // contexto de escalado antes del calculo.
+        final Snapshot snapshot = snapshot(layout);
+        final ScaleContext context = layout.currentScaleContext();
+        
+        pool.invoke(new ComputeTask(snapshot, null, context));
+        apply(snapshot, context);
+    }
+    
+    /*
+        Copia la estructura del subarbol y actualiza el contexto de
+        escalado de cada layout, en el hilo que invoca el reinicio.
+    */
+    private static Snapshot snapshot(DynamicLayout<?> layout) {
+        layout.beginRestart();
+        
+        final DockControl[] controls = layout.controls().toArray(new DockControl[0]);
+        final Snapshot[] subs = new Snapshot[controls.length];
+        for (int i = 0; i < controls.length; i++) {
+            final DynamicLayout<?> sub = controls[i] == null 
+                                        ? null : DynamicLayout.layoutOf(controls[i].getManagedNode());
+            if (sub != null) {
+                subs[i] = snapshot(sub);
+            }
+        }
+        return new Snapshot(layout, controls, subs);
+    }
+    
+    /**
+     * Estructura de un layout copiada antes de la fase de calculo: las
+     * tareas solo leen estos arreglos y escriben el resultado de cada
+     * control, sin tocar el grafo de escena ni los layouts.
+     */
+    private static final class Snapshot {
+        
+        /** Layout copiado. */
+        final DynamicLayout<?> layout;
+        
+        /** Controles de los hijos, en orden de resolucion. */
+        final DockControl[] controls;
+        
+        /** Estructura del layout de cada hijo, <code>null</code> si no tiene. */
+        final Snapshot[] subs;
+
+        Snapshot(DynamicLayout<?> layout, DockControl[] controls, Snapshot[] subs) {
+            this.layout   = layout;
+            this.controls = controls;
+            this.subs     = subs;
+        }
+    }
+    
+    /*
+        Fase de aplicacion, los layouts hijos se suspenden mientras se
+        aplica el resultado de su contenedor para que el cambio de
+        dimensiones no vuelva a calcular sus hijos. Como en
+        DynamicLayout#restart(), con el recorte automatico los subarboles
+        ocultos no se aplican y quedan aplazados.
+    */
+    private static void apply(Snapshot snapshot, ScaleContext context) {
+        final boolean metrics = LayoutMetrics.beginPass();
+        try {
+            snapshot.layout.setSuspended(true);
+            for (int i = 0; i < snapshot.controls.length; i++) {
+                final DockControl dc = snapshot.controls[i];
+                if (dc == null)
+                    continue;
+                
+                final Snapshot sub = snapshot.subs[i];
+                if (sub != null) {
+                    sub.layout.setSuspended(true);
+                }
+                
+                dc.applyLayout(context);
+                
+                final boolean visible = snapshot.layout.restartVisible(dc, context);
+                if (sub == null)
+                    continue;
+                
+                if (visible) {
+                    apply(sub, context);
+                } else {
+                    sub.layout.setSuspended(false);
+                }
+            }
+            snapshot.layout.setSuspended(false);
+            
+            if (metrics) {
+                LayoutMetrics.recomputed(snapshot.controls.length);
+            }
+        } finally {
+            if (metrics) {
+                LayoutMetrics.endPass(snapshot.layout);
+            }
+        }
+    }
+    
+    /**
+     * Tarea de la fase de calculo para un layout y sus descendientes.
+     */
+    @SuppressWarnings("serial")
+    private static final class ComputeTask extends RecursiveAction {
+        
+        /** Estructura del layout a calcular. */
+        private final Snapshot snapshot;
+        
+        /** Control del contenedor del layout, calculado en esta pasada. */
+        private final DockControl owner;
+        
+        /** Contexto de escalado. */
+        private final ScaleContext context;
+
+        ComputeTask(Snapshot snapshot, DockControl owner, ScaleContext context) {
+            this.snapshot = snapshot;
+            this.owner    = owner;
+            this.context  = context;
+        }
+
+        @Override
+        protected void compute() {
+            final float rootWidth  = context == null ? 0.0F : context.getWidth() * context.getScaleFactorWidth(),
+                        rootHeight = context == null ? 0.0F : context.getHeight() * context.getScaleFactorHeight();
+            
+            List<ComputeTask> forks = null;
+            for (int i = 0; i < snapshot.controls.length; i++) {
+                final DockControl dc = snapshot.controls[i];
+                if (dc == null)
+                    continue;
+                
+                // Las dimensiones del padre salen de esta misma pasada si
+                // el padre es el contenedor del layout.
+                float parentWidth, parentHeight;
+                if (!dc.hasParent()) {
+                    parentWidth  = rootWidth;
+                    parentHeight = rootHeight;
+                } else if (dc.getParent() == owner) {
+                    parentWidth  = owner.getLayoutResult().getWidth();
+                    parentHeight = owner.getLayoutResult().getHeight();
+                } else {
+                    parentWidth  = dc.getParent().getWidth();
+                    parentHeight = dc.getParent().getHeight();
+                }
+                dc.computeLayout(context, parentWidth, parentHeight);
+                
+                final Snapshot sub = snapshot.subs[i];
+                if (sub == null)
+                    continue;
+                
+                final ComputeTask task = new ComputeTask(sub, dc, context);
+                if (sub.controls.length < THRESHOLD) {
+                    task.compute();
+                } else {
+                    if (forks == null) {
+                        forks = new ArrayList<>();
+                    }
+                    forks.add(task);
+                }
+            }
+            
+            if (forks != null) {
+                invokeAll(forks);
+            }
+        }
+    }
+}
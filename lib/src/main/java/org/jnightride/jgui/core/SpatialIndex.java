@@ -0,0 +1,608 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.math.Vector3f;
+import com.jme3.math.Vector4f;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+
+import com.simsilica.lemur.core.GuiControl;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+import org.jnightride.jgui.Scalable;
+import org.jnightride.jgui.ScaleContext;
+
+/**
+ * Un <code>SpatialIndex</code> es un indice espacial 2D (rejilla uniforme)
+ * con los rectangulos en pantalla de los componentes de un contenedor raiz.
+ * <p>
+ * Los {@link DockControl} notifican al indice cuando su diseño cambia; el
+ * rectangulo se vuelve a leer (junto con el de sus descendientes) en la 
+ * siguiente consulta, y solo se reubica en la rejilla si cambian sus celdas.
+ * Las consultas utilizan las coordenadas del nodo GUI de <code>jme3</code>
+ * (origen en la esquina inferior izquierda); los componentes ocultos
+ * ({@code CullHint.Always}) se omiten.
+ * <p>
+ * El indice se utiliza desde el hilo de renderizado.
+ * 
+ * @author wil
+ * @version 1.0.0
+ * 
+ * @since 1.0.1
+ */
+public final 
+class SpatialIndex {
+    
+    /** Tamaño predeterminado de las celdas, en pixeles. */
+    public static final float DEFAULT_CELL_SIZE = 64.0F;
+    
+    /** Capacidad inicial de los arreglos. */
+    private static final int INITIAL_CAPACITY = 32;
+    
+    /** Contenedor raiz, de donde se obtienen las dimensiones de la pantalla. */
+    private final Scalable<?> scalable;
+    
+    /** Tamaño de las celdas. */
+    private final float cellSize;
+    
+    /*
+        Componentes indexados, su rectangulo (minX, minY, maxX, maxY), su
+        profundidad y el rango de celdas (c0, r0, c1, r1) que ocupan.
+    */
+    private DockControl[] items = new DockControl[INITIAL_CAPACITY];
+    private float[] rects = new float[INITIAL_CAPACITY * 4];
+    private float[] depths = new float[INITIAL_CAPACITY];
+    private int[] ranges = new int[INITIAL_CAPACITY * 4];
+    private int[] stamps = new int[INITIAL_CAPACITY];
+    private int count;
+    
+    /*
+        Componentes pendientes de volver a leer su rectangulo.
+    */
+    private DockControl[] dirty = new DockControl[INITIAL_CAPACITY];
+    private int dirtyCount;
+    
+    /*
+        Rejilla: ranuras de los componentes de cada celda.
+    */
+    private int[][] cells;
+    private int[] cellCounts;
+    private int cols, rows;
+    
+    /*
+        Contexto con el que se genero la rejilla.
+    */
+    private ScaleContext scaleContext;
+    private long scaleVersion;
+    
+    /** Marca de la consulta actual, evita resultados duplicados. */
+    private int queryStamp;
+
+    /**
+     * Genera un nuevo <code>SpatialIndex</code> con el tamaño de celda
+     * predeterminado.
+     * @param scalable contenedor raiz.
+     */
+    public SpatialIndex(@Nonnull Scalable<?> scalable) {
+        this(scalable, DEFAULT_CELL_SIZE);
+    }
+    
+    /**
+     * Genera un nuevo <code>SpatialIndex</code>.
+     * @param scalable contenedor raiz.
+     * @param cellSize tamaño de las celdas, en pixeles.
+     */
+    public SpatialIndex(@Nonnull Scalable<?> scalable, float cellSize) {
+        if (!(cellSize > 0.0F)) {
+            throw new IllegalArgumentException("CellSize=[" + cellSize);
+        }
+        this.scalable = scalable;
+        this.cellSize = cellSize;
+    }
+    
+    /*
+        Marca un componente (y sus descendientes, que se mueven con el) 
+        para volver a leer su rectangulo en la siguiente consulta.
+    */
+    void invalidate(DockControl dc) {
+        if (dc.indexDirty)
+            return;
+        
+        dc.indexDirty = true;
+        if (dirtyCount == dirty.length) {
+            dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+        }
+        dirty[dirtyCount++] = dc;
+        
+        final DynamicLayout<?> layout = DynamicLayout.layoutOf(dc.getManagedNode());
+        if (layout != null) {
+            for (final DockControl child : layout.controls()) {
+                invalidate(child);
+            }
+        }
+    }
+    
+    /*
+        Elimina un componente y sus descendientes del indice.
+    */
+    void remove(DockControl dc) {
+        final int slot = dc.indexSlot;
+        if (slot >= 0 && slot < count && items[slot] == dc) {
+            unlink(slot);
+            
+            final int last = --count;
+            if (slot != last) {
+                final DockControl moved = items[last];
+                relink(last, slot);
+                move(last, slot);
+                moved.indexSlot = slot;
+            }
+            items[last] = null;
+        }
+        dc.indexSlot  = -1;
+        dc.indexDirty = false;
+        
+        final DynamicLayout<?> layout = DynamicLayout.layoutOf(dc.getManagedNode());
+        if (layout != null) {
+            for (final DockControl child : layout.controls()) {
+                remove(child);
+            }
+        }
+    }
+    
+    /**
+     * Elimina todos los componentes del indice.
+     */
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            items[i].indexSlot  = -1;
+            items[i].indexDirty = false;
+        }
+        for (int i = 0; i < dirtyCount; i++) {
+            dirty[i].indexDirty = false;
+        }
+        Arrays.fill(items, 0, count, null);
+        Arrays.fill(dirty, 0, dirtyCount, null);
+        count      = 0;
+        dirtyCount = 0;
+        if (cellCounts != null) {
+            Arrays.fill(cellCounts, 0);
+        }
+    }
+    
+    /**
+     * Actualiza el indice con los componentes pendientes; las consultas
+     * lo invocan automaticamente.
+     */
+    public void refresh() {
+        final ScaleContext context = scalable.getScaleContext();
+        if (cells == null || context != scaleContext 
+                || context.getVersion() != scaleVersion) {
+            rebuild(context);
+        }
+        
+        for (int i = 0; i < dirtyCount; i++) {
+            final DockControl dc = dirty[i];
+            dirty[i] = null;
+            if (!dc.indexDirty)
+                continue;
+            
+            dc.indexDirty = false;
+            update(dc);
+        }
+        dirtyCount = 0;
+    }
+    
+    /**
+     * Devuelve el componente visible de mayor profundidad que contiene el
+     * punto dado.
+     * 
+     * @param x coordenada {@code x} en pantalla.
+     * @param y coordenada {@code y} en pantalla.
+     * @return Componente encontrado, de lo contrario <code>null</code>.
+     */
+    public DockControl pick(float x, float y) {
+        refresh();
+        final int cell = cellOf(x, y);
+        if (cell < 0)
+            return null;
+        
+        DockControl best = null;
+        float bestZ = Float.NEGATIVE_INFINITY;
+        final int[] slots = cells[cell];
+        for (int i = 0, n = cellCounts[cell]; i < n; i++) {
+            final int s = slots[i];
+            if (contains(s, x, y) && depths[s] >= bestZ && isVisible(items[s])) {
+                best  = items[s];
+                bestZ = depths[s];
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Agrega a {@code store} todos los componentes visibles que contienen
+     * el punto dado.
+     * 
+     * @param x coordenada {@code x} en pantalla.
+     * @param y coordenada {@code y} en pantalla.
+     * @param store lista donde se guarda el resultado.
+     * @return La lista {@code store}.
+     */
+    public List<DockControl> pickAll(float x, float y, @Nonnull List<DockControl> store) {
+        refresh();
+        final int cell = cellOf(x, y);
+        if (cell < 0)
+            return store;
+        
+        final int[] slots = cells[cell];
+        for (int i = 0, n = cellCounts[cell]; i < n; i++) {
+            final int s = slots[i];
+            if (contains(s, x, y) && isVisible(items[s])) {
+                store.add(items[s]);
+            }
+        }
+        return store;
+    }
+    
+    /**
+     * Agrega a {@code store} todos los componentes visibles cuyo rectangulo
+     * se superpone con el rectangulo dado.
+     * 
+     * @param minX borde izquierdo.
+     * @param minY borde inferior.
+     * @param maxX borde derecho.
+     * @param maxY borde superior.
+     * @param store lista donde se guarda el resultado.
+     * @return La lista {@code store}.
+     */
+    public List<DockControl> overlap(float minX, float minY, float maxX, float maxY, 
+                                        @Nonnull List<DockControl> store) {
+        refresh();
+        final int stamp = nextStamp();
+        final int c0 = col(minX), c1 = col(maxX),
+                  r0 = row(minY), r1 = row(maxY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                final int cell = r * cols + c;
+                final int[] slots = cells[cell];
+                for (int i = 0, n = cellCounts[cell]; i < n; i++) {
+                    final int s = slots[i];
+                    if (stamps[s] == stamp)
+                        continue;
+                    
+                    stamps[s] = stamp;
+                    final int o = s * 4;
+                    if (rects[o] <= maxX && rects[o + 2] >= minX 
+                            && rects[o + 1] <= maxY && rects[o + 3] >= minY 
+                            && isVisible(items[s])) {
+                        store.add(items[s]);
+                    }
+                }
+            }
+        }
+        return store;
+    }
+    
+    /**
+     * Devuelve el componente visible mas cercano al punto dado (distancia
+     * al borde de su rectangulo, cero si lo contiene). La busqueda recorre
+     * anillos de celdas alrededor del punto.
+     * 
+     * @param x coordenada {@code x} en pantalla.
+     * @param y coordenada {@code y} en pantalla.
+     * @return Componente encontrado, de lo contrario <code>null</code>.
+     */
+    public DockControl nearest(float x, float y) {
+        refresh();
+        if (count == 0)
+            return null;
+        
+        final int stamp = nextStamp();
+        final int cx = col(x), cy = row(y);
+        final int maxRing = Math.max(Math.max(cx, cols - 1 - cx), Math.max(cy, rows - 1 - cy));
+        
+        DockControl best = null;
+        float bestDist = Float.POSITIVE_INFINITY;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Las celdas de este anillo estan a una distancia minima de
+            // (ring - 1) celdas del punto.
+            final float ringDist = (ring - 1) * cellSize;
+            if (best != null && ringDist > 0.0F && ringDist * ringDist > bestDist)
+                break;
+            
+            for (int r = cy - ring; r <= cy + ring; r++) {
+                if (r < 0 || r >= rows)
+                    continue;
+                
+                final boolean edge = r == cy - ring || r == cy + ring;
+                for (int c = cx - ring; c <= cx + ring; c += edge ? 1 : Math.max(1, ring * 2)) {
+                    if (c < 0 || c >= cols)
+                        continue;
+                    
+                    final int cell = r * cols + c;
+                    final int[] slots = cells[cell];
+                    for (int i = 0, n = cellCounts[cell]; i < n; i++) {
+                        final int s = slots[i];
+                        if (stamps[s] == stamp)
+                            continue;
+                        
+                        stamps[s] = stamp;
+                        final float d = distanceSquared(s, x, y);
+                        if (d < bestDist && isVisible(items[s])) {
+                            best     = items[s];
+                            bestDist = d;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Devuelve el rectangulo en pantalla de un componente indexado.
+     * 
+     * @param dc componente.
+     * @param store vector donde se guarda {@code (minX, minY, maxX, maxY)}.
+     * @return {@code store}, o <code>null</code> si el componente no esta
+     *          en el indice.
+     */
+    public Vector4f getBounds(@Nonnull DockControl dc, @Nonnull Vector4f store) {
+        refresh();
+        final int slot = dc.indexSlot;
+        if (slot < 0 || slot >= count || items[slot] != dc)
+            return null;
+        
+        final int o = slot * 4;
+        return store.set(rects[o], rects[o + 1], rects[o + 2], rects[o + 3]);
+    }
+    
+    public int size() {
+        refresh();
+        return count;
+    }
+    
+    public float getCellSize() {
+        return cellSize;
+    }
+    
+    /*
+        Lee el rectangulo de un componente y lo reubica en la rejilla.
+    */
+    private void update(DockControl dc) {
+        final Node node = dc.getManagedNode();
+        final GuiControl control = node == null 
+                                    ? null : node.getControl(GuiControl.class);
+        if (control == null) {
+            remove(dc);
+            return;
+        }
+        
+        int slot = dc.indexSlot;
+        if (slot < 0 || slot >= count || items[slot] != dc) {
+            if (count == items.length) {
+                grow(count * 2);
+            }
+            slot = count++;
+            items[slot]  = dc;
+            stamps[slot] = 0;
+            dc.indexSlot = slot;
+            ranges[slot * 4] = -1;
+        }
+        
+        // Los paneles de Lemur crecen hacia la derecha y hacia abajo
+        // desde su traslacion.
+        final Vector3f size  = control.getSize(),
+                       pos   = node.getWorldTranslation(),
+                       scale = node.getWorldScale();
+        final float minX = pos.x,
+                    maxX = pos.x + size.x * scale.x,
+                    maxY = pos.y,
+                    minY = pos.y - size.y * scale.y;
+        
+        final int o = slot * 4;
+        rects[o]     = minX;
+        rects[o + 1] = minY;
+        rects[o + 2] = maxX;
+        rects[o + 3] = maxY;
+        depths[slot] = pos.z;
+        
+        final int c0 = col(minX), r0 = row(minY),
+                  c1 = col(maxX), r1 = row(maxY);
+        if (ranges[o] != c0 || ranges[o + 1] != r0 
+                || ranges[o + 2] != c1 || ranges[o + 3] != r1) {
+            unlink(slot);
+            ranges[o]     = c0;
+            ranges[o + 1] = r0;
+            ranges[o + 2] = c1;
+            ranges[o + 3] = r1;
+            link(slot);
+        }
+    }
+    
+    /*
+        Genera la rejilla para las dimensiones de la pantalla y vuelve a
+        leer todos los componentes.
+    */
+    private void rebuild(ScaleContext context) {
+        scaleContext = context;
+        scaleVersion = context.getVersion();
+        
+        cols = Math.max(1, (int) Math.ceil(context.getAppWidth() / cellSize));
+        rows = Math.max(1, (int) Math.ceil(context.getAppHeight() / cellSize));
+        cells      = new int[cols * rows][];
+        cellCounts = new int[cols * rows];
+        
+        for (int i = 0; i < count; i++) {
+            ranges[i * 4] = -1;
+            if (!items[i].indexDirty) {
+                invalidate(items[i]);
+            }
+        }
+    }
+    
+    /*
+        Agrega una ranura a las celdas de su rango.
+    */
+    private void link(int slot) {
+        final int o = slot * 4;
+        if (ranges[o] < 0)
+            return;
+        
+        for (int r = ranges[o + 1]; r <= ranges[o + 3]; r++) {
+            for (int c = ranges[o]; c <= ranges[o + 2]; c++) {
+                final int cell = r * cols + c;
+                int[] slots = cells[cell];
+                final int n = cellCounts[cell];
+                if (slots == null) {
+                    slots = cells[cell] = new int[4];
+                } else if (n == slots.length) {
+                    slots = cells[cell] = Arrays.copyOf(slots, n * 2);
+                }
+                slots[n] = slot;
+                cellCounts[cell] = n + 1;
+            }
+        }
+    }
+    
+    /*
+        Quita una ranura de las celdas de su rango.
+    */
+    private void unlink(int slot) {
+        final int o = slot * 4;
+        if (ranges[o] < 0)
+            return;
+        
+        for (int r = ranges[o + 1]; r <= ranges[o + 3]; r++) {
+            for (int c = ranges[o]; c <= ranges[o + 2]; c++) {
+                final int cell = r * cols + c;
+                final int[] slots = cells[cell];
+                final int n = cellCounts[cell];
+                for (int i = 0; i < n; i++) {
+                    if (slots[i] == slot) {
+                        slots[i] = slots[n - 1];
+                        cellCounts[cell] = n - 1;
+                        break;
+                    }
+                }
+            }
+        }
+        ranges[o] = -1;
+    }
+    
+    /*
+        Sustituye una ranura por otra en las celdas de su rango.
+    */
+    private void relink(int from, int to) {
+        final int o = from * 4;
+        if (ranges[o] < 0)
+            return;
+        
+        for (int r = ranges[o + 1]; r <= ranges[o + 3]; r++) {
+            for (int c = ranges[o]; c <= ranges[o + 2]; c++) {
+                final int cell = r * cols + c;
+                final int[] slots = cells[cell];
+                for (int i = 0, n = cellCounts[cell]; i < n; i++) {
+                    if (slots[i] == from) {
+                        slots[i] = to;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+    
+    /*
+        Copia los datos de una ranura a otra (sin tocar la rejilla).
+    */
+    private void move(int from, int to) {
+        items[to]  = items[from];
+        depths[to] = depths[from];
+        stamps[to] = stamps[from];
+        System.arraycopy(rects, from * 4, rects, to * 4, 4);
+        System.arraycopy(ranges, from * 4, ranges, to * 4, 4);
+    }
+    
+    private void grow(int capacity) {
+        items  = Arrays.copyOf(items, capacity);
+        rects  = Arrays.copyOf(rects, capacity * 4);
+        depths = Arrays.copyOf(depths, capacity);
+        ranges = Arrays.copyOf(ranges, capacity * 4);
+        stamps = Arrays.copyOf(stamps, capacity);
+    }
+    
+    private int nextStamp() {
+        if (++queryStamp == 0) {
+            Arrays.fill(stamps, 0);
+            queryStamp = 1;
+        }
+        return queryStamp;
+    }
+    
+    private int col(float x) {
+        final int c = (int) Math.floor(x / cellSize);
+        return c < 0 ? 0 : (c >= cols ? cols - 1 : c);
+    }
+    
+    private int row(float y) {
+        final int r = (int) Math.floor(y / cellSize);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+    
+    private int cellOf(float x, float y) {
+        return cells == null ? -1 : row(y) * cols + col(x);
+    }
+    
+    private boolean contains(int slot, float x, float y) {
+        final int o = slot * 4;
+        return x >= rects[o] && x <= rects[o + 2] 
+                && y >= rects[o + 1] && y <= rects[o + 3];
+    }
+    
+    private float distanceSquared(int slot, float x, float y) {
+        final int o = slot * 4;
+        final float dx = x < rects[o] ? rects[o] - x : (x > rects[o + 2] ? x - rects[o + 2] : 0.0F),
+                    dy = y < rects[o + 1] ? rects[o + 1] - y : (y > rects[o + 3] ? y - rects[o + 3] : 0.0F);
+        return dx * dx + dy * dy;
+    }
+    
+    /*
+        Un componente es visible si ni el ni ninguno de sus padres esta
+        oculto y sigue conectado al contenedor raiz.
+    */
+    private boolean isVisible(DockControl dc) {
+        final Object root = scalable;
+        Spatial spatial = dc.getManagedNode();
+        if (spatial == null)
+            return false;
+        
+        while (spatial != null) {
+            if (spatial.getLocalCullHint() == Spatial.CullHint.Always)
+                return false;
+            if (spatial == root)
+                return true;
+            spatial = spatial.getParent();
+        }
+        
+        // Desconectado del contenedor raiz (si el contenedor es un nodo).
+        return !(root instanceof Spatial);
+    }
+}
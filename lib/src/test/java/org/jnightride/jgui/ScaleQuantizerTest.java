@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de las politicas de {@link ScaleQuantizer} y de los intervalos
+ * de escala de {@link ScaleContext}.
+ * 
+ * @author wil
+ */
+class ScaleQuantizerTest {
+    
+    @Test
+    void stepRoundsToNearestMultiple() {
+        final ScaleQuantizer q = ScaleQuantizer.step(1.0F / 64.0F);
+        
+        assertEquals(1.0F, q.quantize(1.0F));
+        assertEquals(1.0F, q.quantize(1.007F));
+        assertEquals(65.0F / 64.0F, q.quantize(1.02F));
+        assertEquals(1.875F, q.quantize(1919.0F / 1024.0F));
+        
+        // Como minimo un intervalo.
+        assertEquals(1.0F / 64.0F, q.quantize(0.001F));
+    }
+    
+    @Test
+    void stepRejectsInvalidIntervals() {
+        assertThrows(IllegalArgumentException.class, () -> ScaleQuantizer.step(0.0F));
+        assertThrows(IllegalArgumentException.class, () -> ScaleQuantizer.step(-1.0F));
+        assertThrows(IllegalArgumentException.class, () -> ScaleQuantizer.step(Float.NaN));
+    }
+    
+    @Test
+    void tiersPickNearestLevel() {
+        final ScaleQuantizer q = ScaleQuantizer.tiers(2.0F, 1.0F, 1.5F, 1.25F);
+        
+        assertEquals(1.25F, q.quantize(1.25F));
+        assertEquals(1.0F, q.quantize(1.1F));
+        assertEquals(1.25F, q.quantize(1.2F));
+        assertEquals(1.0F, q.quantize(1.125F));
+        assertEquals(1.0F, q.quantize(0.5F));
+        assertEquals(2.0F, q.quantize(3.0F));
+        
+        assertThrows(IllegalArgumentException.class, () -> ScaleQuantizer.tiers());
+    }
+    
+    @Test
+    void contextKeepsBucketWithinInterval() {
+        final ScaleContext context = new ScaleContext();
+        context.setQuantizer(ScaleQuantizer.step(1.0F / 64.0F));
+        
+        assertTrue(context.update(1920, 1080, AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT));
+        final long version = context.getVersion(),
+                   bucket  = context.getBucket();
+        
+        assertFalse(context.update(1919, 1080, AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT));
+        assertEquals(version, context.getVersion());
+        assertEquals(bucket, context.getBucket());
+        assertEquals(1919.0F, context.getAppWidth());
+        
+        assertTrue(context.update(2560, 1440, AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT));
+        assertNotEquals(bucket, context.getBucket());
+    }
+    
+    @Test
+    void contextWithoutQuantizerTracksEveryChange() {
+        final ScaleContext context = new ScaleContext();
+        
+        assertTrue(context.update(1920, 1080, AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT));
+        final long bucket = context.getBucket();
+        assertTrue(context.update(1919, 1080, AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT));
+        assertNotEquals(bucket, context.getBucket());
+    }
+}
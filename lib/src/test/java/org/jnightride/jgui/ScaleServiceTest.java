@@ -0,0 +1,118 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui;
+
+import com.jme3.math.Vector3f;
+
+import java.util.Arrays;
+
+import org.jnightride.jgui.core.GuiFixtures;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Pruebas de los contextos compartidos de {@link ScaleService}: los
+ * contenedores iguales comparten el contexto y los que ya no se utilizan
+ * se liberan.
+ * 
+ * @author wil
+ */
+class ScaleServiceTest {
+    
+    private ScaleService service;
+    private RootPane first, second;
+    
+    @BeforeEach
+    void setUp() {
+        service = new ScaleService();
+        service.setResolution(1920, 1080);
+        
+        first  = GuiFixtures.newRoot(800, 450);
+        second = GuiFixtures.newRoot(800, 450);
+        service.subscribe(first, 0);
+        service.subscribe(second, 10);
+    }
+    
+    @Test
+    void equalRootsShareOneContext() {
+        final ScaleContext context = first.getScaleContext();
+        
+        assertSame(context, second.getScaleContext());
+        assertSame(context, first.getScaleContext());
+        assertEquals(1, service.getContextCount());
+        assertEquals(1920.0F / 800.0F, context.getScaleFactorWidth());
+        
+        service.setResolution(1280, 720);
+        assertSame(context, first.getScaleContext());
+        assertEquals(1280.0F / 800.0F, context.getScaleFactorWidth());
+    }
+    
+    @Test
+    void resizedRootReleasesItsContext() {
+        final ScaleContext shared = first.getScaleContext();
+        second.getScaleContext();
+        
+        first.setPreferredSize(new Vector3f(1024, 576, 0));
+        assertNotSame(shared, first.getScaleContext());
+        assertSame(shared, second.getScaleContext());
+        assertEquals(2, service.getContextCount());
+        
+        second.setPreferredSize(new Vector3f(1024, 576, 0));
+        assertSame(first.getScaleContext(), second.getScaleContext());
+        assertEquals(1, service.getContextCount());
+    }
+    
+    @Test
+    void unsubscribeReleasesContexts() {
+        first.getScaleContext();
+        second.setPreferredSize(new Vector3f(640, 360, 0));
+        second.getScaleContext();
+        assertEquals(2, service.getContextCount());
+        
+        service.unsubscribe(first);
+        assertEquals(1, service.getContextCount());
+        service.unsubscribe(second);
+        assertEquals(0, service.getContextCount());
+    }
+    
+    @Test
+    void getterReturnsCachedContext() {
+        final ScaleContext shared = first.getScaleContext();
+        
+        // El getter no vuelve a leer las dimensiones, solo el refresco.
+        first.getPreferredSize().set(1024, 576, 0);
+        assertSame(shared, first.getScaleContext());
+        assertEquals(1, service.getContextCount());
+        
+        first.refreshScaleContext();
+        assertNotSame(shared, first.getScaleContext());
+        assertEquals(2, service.getContextCount());
+    }
+    
+    @Test
+    void rootsAreOrderedByPriority() {
+        assertEquals(Arrays.asList(second, first), service.getRootPanes());
+        assertEquals(10, service.getPriority(second));
+        
+        service.subscribe(first, 20);
+        assertEquals(Arrays.asList(first, second), service.getRootPanes());
+    }
+}
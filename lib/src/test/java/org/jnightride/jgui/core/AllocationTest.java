@@ -0,0 +1,172 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.math.Vector3f;
+
+import com.simsilica.lemur.Container;
+import com.simsilica.lemur.Panel;
+
+import java.lang.management.ManagementFactory;
+
+import org.jnightride.jgui.AppSize;
+import org.jnightride.jgui.RootPane;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Comprueba que las pasadas de diseño, sin cambios o volviendo a
+ * resolver los componentes (posiciones, dimensiones o animaciones), no
+ * generan basura.
+ * 
+ * @author wil
+ */
+class AllocationTest {
+    
+    /** Pasadas de calentamiento, para que el JIT compile el recorrido. */
+    private static final int WARMUP = 20_000;
+    
+    /** Pasadas medidas. */
+    private static final int ROUNDS = 1_000;
+    
+    /*
+        Arbol de prueba y bean con la memoria asignada por hilo.
+    */
+    private RootPane root;
+    private com.sun.management.ThreadMXBean threads;
+    
+    /* Contador de pasadas para alternar los valores. */
+    private int frame;
+    
+    @BeforeEach
+    void setUp() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                   "Per-thread allocation counters are not available.");
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(),
+                   "Per-thread allocation counters are not supported.");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        
+        root = GuiFixtures.newRoot(AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT);
+        final Dock[] docks = Dock.values();
+        for (int i = 0; i < 64; i++) {
+            root.addChild(GuiFixtures.newPanel(16 + i, 8 + i), docks[i % docks.length], i % 2 == 0);
+        }
+        
+        Container container = root.addChild(GuiFixtures.newContainer(root, 320, 240), Dock.Center);
+        for (int i = 0; i < 16; i++) {
+            container.addChild(GuiFixtures.newPanel(8, 8), docks[i % docks.length]);
+        }
+        GuiFixtures.layout(root);
+    }
+    
+    @Test
+    void updateLogicalStateDoesNotAllocate() {
+        assertEquals(0L, allocatedBy(() -> root.updateLogicalState(0.016F)),
+                     "Bytes allocated by unchanged updateLogicalState passes");
+    }
+    
+    @Test
+    void reshapeDoesNotAllocate() {
+        final DynamicLayout<?> layout = GuiFixtures.layoutOf(root);
+        final Vector3f pos  = new Vector3f(),
+                       size = new Vector3f(root.getPreferredSize());
+        assertEquals(0L, allocatedBy(() -> layout.reshape(pos, size)),
+                     "Bytes allocated by unchanged reshape passes");
+    }
+    
+    @Test
+    void setPositionRelayoutDoesNotAllocate() {
+        final DockControl dc = GuiFixtures.controlOf(root.addChild(GuiFixtures.newPanel(16, 16), Dock.LeftTop));
+        GuiFixtures.layout(root);
+        
+        // Cada pasada cambia la posicion, el componente se vuelve a resolver.
+        assertEquals(0L, allocatedBy(() -> {
+                         dc.setPosition((frame++ & 1) == 0 ? 10.0F : 20.0F, 5.0F);
+                     }), "Bytes allocated by setPosition relayouts");
+    }
+    
+    @Test
+    void resizeRelayoutDoesNotAllocate() {
+        final DynamicLayout<?> layout = GuiFixtures.layoutOf(root);
+        final Vector3f pos   = new Vector3f(),
+                       small = new Vector3f(root.getPreferredSize()),
+                       large = small.mult(1.5F);
+        
+        // Dimensiones alternas: todos los hijos se vuelven a resolver.
+        assertEquals(0L, allocatedBy(() -> layout.reshape(pos, (frame++ & 1) == 0 ? large : small)),
+                     "Bytes allocated by resized reshape passes");
+    }
+    
+    @Test
+    void tweenFramesDoNotAllocate() {
+        final DynamicLayout<?> layout = GuiFixtures.layoutOf(root);
+        final Vector3f pos  = new Vector3f(),
+                       size = new Vector3f(root.getPreferredSize());
+        
+        // Animaciones que no terminan durante las pasadas medidas.
+        final float duration = (WARMUP + ROUNDS) * 0.016F * 2.0F;
+        final Panel moving  = root.addChild(GuiFixtures.newPanel(16, 16), Dock.LeftCenter),
+                    growing = root.addChild(GuiFixtures.newPanel(16, 16), Dock.RightCenter);
+        GuiFixtures.layout(root);
+        final DockControl move = GuiFixtures.controlOf(moving),
+                          grow = GuiFixtures.controlOf(growing);
+        move.animatePosition(200.0F, 100.0F, duration, Easing.Linear);
+        grow.animateSize(160.0F, 80.0F, duration, Easing.Linear);
+        
+        // Cada frame los controles animados solo se marcan como sucios, una
+        // sola pasada del layout propietario los resuelve.
+        move.update(0.016F);
+        grow.update(0.016F);
+        assertTrue(move.isLayoutDirty() && grow.isLayoutDirty());
+        assertTrue(layout.isLayoutPending());
+        layout.reshape(pos, size);
+        assertFalse(layout.isLayoutPending());
+        assertFalse(move.isLayoutDirty() || grow.isLayoutDirty());
+        
+        assertEquals(0L, allocatedBy(() -> {
+                         move.update(0.016F);
+                         grow.update(0.016F);
+                         layout.reshape(pos, size);
+                     }), "Bytes allocated by tween frames");
+    }
+    
+    /*
+        Bytes asignados por el hilo actual durante las pasadas medidas,
+        descontando lo que asigna la propia lectura del contador.
+    */
+    private long allocatedBy(Runnable pass) {
+        for (int i = 0; i < WARMUP; i++) {
+            pass.run();
+        }
+        
+        final long id = Thread.currentThread().getId();
+        final long probe    = threads.getThreadAllocatedBytes(id),
+                   overhead = threads.getThreadAllocatedBytes(id) - probe;
+        
+        final long start = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < ROUNDS; i++) {
+            pass.run();
+        }
+        return threads.getThreadAllocatedBytes(id) - start - overhead;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.scene.Node;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de las lapidas y la compactacion de {@link ChildStore}.
+ * 
+ * @author wil
+ */
+class ChildStoreTest {
+    
+    private ChildStore store;
+    private Node[] nodes;
+    
+    @BeforeEach
+    void setUp() {
+        store = new ChildStore();
+        nodes = new Node[8];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = GuiFixtures.newPanel(1, 1);
+            final DockControl dc = new DockControl(null, new DockStyle());
+            nodes[i].addControl(dc);
+            assertEquals(i, store.add(nodes[i], dc));
+        }
+    }
+    
+    @Test
+    void addKeepsInsertionOrder() {
+        assertEquals(8, store.size());
+        assertEquals(8, store.slots());
+        assertEquals(Arrays.asList(nodes), store.nodes());
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals(i, store.indexOf(nodes[i]));
+            assertEquals(i, store.controlAt(i).childSlot);
+        }
+    }
+    
+    @Test
+    void removeLeavesTombstone() {
+        final DockControl removed = store.remove(nodes[2]);
+        
+        assertSame(nodes[2].getControl(DockControl.class), removed);
+        assertEquals(-1, removed.childSlot);
+        assertEquals(7, store.size());
+        assertEquals(8, store.slots());
+        assertNull(store.nodeAt(2));
+        assertNull(store.controlAt(2));
+        assertFalse(store.contains(nodes[2]));
+        assertNull(store.remove(nodes[2]));
+        
+        // Las demas ranuras no cambian.
+        assertEquals(3, store.indexOf(nodes[3]));
+    }
+    
+    @Test
+    void removeLastShrinks() {
+        store.remove(nodes[7]);
+        assertEquals(7, store.slots());
+        assertEquals(7, store.size());
+    }
+    
+    @Test
+    void compactsWhenTombstonesExceedHalf() {
+        for (int i = 0; i < 4; i++) {
+            store.remove(nodes[i]);
+        }
+        assertEquals(8, store.slots());
+        
+        store.remove(nodes[4]);
+        assertEquals(3, store.slots());
+        assertEquals(3, store.size());
+        assertEquals(Arrays.asList(nodes[5], nodes[6], nodes[7]), store.nodes());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, store.indexOf(nodes[5 + i]));
+            assertEquals(i, store.controlAt(i).childSlot);
+        }
+    }
+    
+    @Test
+    void viewsCompact() {
+        store.remove(nodes[1]);
+        assertEquals(8, store.slots());
+        
+        assertEquals(7, store.controls().size());
+        assertEquals(7, store.slots());
+        assertSame(nodes[2], store.nodes().get(1));
+        assertEquals(1, store.indexOf(nodes[2]));
+    }
+    
+    @Test
+    void nodesIsSnapshot() {
+        final List<Node> before = store.nodes();
+        store.remove(nodes[0]);
+        store.remove(nodes[1]);
+        
+        assertEquals(Arrays.asList(nodes), before);
+        assertEquals(6, store.nodes().size());
+    }
+    
+    @Test
+    void addReusesTombstonesBeforeGrowing() {
+        store.remove(nodes[1]);
+        
+        final Node extra = GuiFixtures.newPanel(1, 1);
+        final DockControl dc = new DockControl(null, new DockStyle());
+        extra.addControl(dc);
+        
+        assertEquals(7, store.add(extra, dc));
+        assertEquals(8, store.slots());
+        assertEquals(8, store.size());
+        assertSame(nodes[2], store.nodeAt(1));
+        assertTrue(store.contains(extra));
+    }
+}
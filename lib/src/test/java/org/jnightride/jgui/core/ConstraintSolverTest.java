@@ -0,0 +1,148 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.scene.Node;
+
+import com.simsilica.lemur.Panel;
+
+import java.util.Arrays;
+
+import org.jnightride.jgui.AppSize;
+import org.jnightride.jgui.RootPane;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas del orden de resolucion de {@link ConstraintSolver}, del rechazo
+ * de alineaciones ciclicas y de la actualizacion de los hermanos que se
+ * alinean con un componente que cambio.
+ * 
+ * @author wil
+ */
+class ConstraintSolverTest {
+    
+    /** Tolerancia de las comparaciones. */
+    private static final float EPSILON = 1e-4F;
+    
+    private ChildStore children;
+    private DockControl a, b, c;
+    
+    @BeforeEach
+    void setUp() {
+        children = new ChildStore();
+        a = add();
+        b = add();
+        c = add();
+    }
+    
+    @Test
+    void insertionOrderWithoutAlignments() {
+        assertEquals(Arrays.asList(a, b, c), new ConstraintSolver().order(children));
+    }
+    
+    @Test
+    void referencesResolveFirst() {
+        a.getConstraints().align(Edge.Left, c, Edge.Right, 0);
+        c.getConstraints().align(Edge.Top, b, Edge.Bottom, 0);
+        
+        assertEquals(Arrays.asList(b, c, a), new ConstraintSolver().order(children));
+    }
+    
+    @Test
+    void orderIsCachedUntilInvalidated() {
+        final ConstraintSolver solver = new ConstraintSolver();
+        a.getConstraints().align(Edge.Left, c, Edge.Right, 0);
+        assertEquals(Arrays.asList(c, a, b), solver.order(children));
+        
+        a.getConstraints().clearAlignment();
+        assertEquals(Arrays.asList(c, a, b), solver.order(children));
+        
+        solver.invalidate();
+        assertEquals(Arrays.asList(a, b, c), solver.order(children));
+    }
+    
+    @Test
+    void siblingsOutsideTheLayoutAreIgnored() {
+        final DockControl outside = new DockControl(null, new DockStyle());
+        GuiFixtures.newPanel(1, 1).addControl(outside);
+        a.getConstraints().align(Edge.Left, outside, Edge.Right, 0);
+        
+        assertEquals(Arrays.asList(a, b, c), new ConstraintSolver().order(children));
+    }
+    
+    @Test
+    void cyclesAreRejected() {
+        a.getConstraints().align(Edge.Left, b, Edge.Right, 0);
+        b.getConstraints().align(Edge.Top, c, Edge.Bottom, 0);
+        
+        assertThrows(IllegalArgumentException.class, 
+                     () -> c.getConstraints().align(Edge.Left, a, Edge.Right, 0));
+        assertThrows(IllegalArgumentException.class, 
+                     () -> a.getConstraints().align(Edge.Top, a, Edge.Bottom, 0));
+        assertNull(c.getConstraints().getSiblingX());
+        
+        // Los bordes deben ser del mismo eje.
+        assertThrows(IllegalArgumentException.class, 
+                     () -> c.getConstraints().align(Edge.Left, b, Edge.Top, 0));
+    }
+    
+    @Test
+    void computeTracksResultChanges() {
+        final ConstraintSolver solver = new ConstraintSolver();
+        
+        solver.compute(a, null);
+        assertTrue(a.resultChanged);
+        
+        solver.compute(a, null);
+        assertFalse(a.resultChanged);
+    }
+    
+    @Test
+    void dependentsFollowTheirReference() {
+        RootPane root = GuiFixtures.newRoot(AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT);
+        Panel reference = root.addChild(GuiFixtures.newPanel(100, 40), Dock.LeftTop),
+              dependent = root.addChild(GuiFixtures.newPanel(60, 40), Dock.LeftBottom);
+        GuiFixtures.controlOf(dependent).getConstraints()
+                .align(Edge.Left, GuiFixtures.controlOf(reference), Edge.Right, 10);
+        GuiFixtures.layout(root);
+        
+        final LayoutResult ref = GuiFixtures.controlOf(reference).getLayoutResult(),
+                           dep = GuiFixtures.controlOf(dependent).getLayoutResult();
+        assertEquals(ref.getX() + ref.getWidth() + 10, dep.getX(), EPSILON);
+        
+        // Mover la referencia vuelve a resolver al hermano que se alinea
+        // con ella en la siguiente pasada.
+        GuiFixtures.controlOf(reference).setPosition(50, 0);
+        GuiFixtures.layout(root);
+        assertEquals(ref.getX() + ref.getWidth() + 10, dep.getX(), EPSILON);
+    }
+    
+    private DockControl add() {
+        final Node node = GuiFixtures.newPanel(1, 1);
+        final DockControl dc = new DockControl(null, new DockStyle());
+        node.addControl(dc);
+        children.add(node, dc);
+        return dc;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.export.Savable;
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.export.binary.BinaryImporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la igualdad por valor, los estilos compartidos (interned) y
+ * la serializacion de {@link DockStyle}.
+ * 
+ * @author wil
+ */
+class DockStyleTest {
+    
+    @Test
+    void equalValuesAreEqual() {
+        DockStyle a = style(Dock.LeftTop, true),
+                  b = style(Dock.LeftTop, true);
+        
+        assertNotSame(a, b);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        
+        b.setLocation(3, 4);
+        assertNotEquals(a, b);
+        assertNotEquals(a, style(Dock.RightTop, true));
+        assertNotEquals(a, style(Dock.LeftTop, false));
+    }
+    
+    @Test
+    void internSharesFrozenInstances() {
+        DockStyle a = style(Dock.Center, false).intern(),
+                  b = style(Dock.Center, false).intern();
+        
+        assertSame(a, b);
+        assertTrue(a.isFrozen());
+        assertSame(a, a.intern());
+        
+        // El original sigue siendo editable.
+        DockStyle source = style(Dock.Center, false);
+        source.intern();
+        assertFalse(source.isFrozen());
+        source.setDepth(5);
+    }
+    
+    @Test
+    void frozenStylesRejectWrites() {
+        DockStyle frozen = style(Dock.Center, false).intern();
+        
+        assertThrows(IllegalStateException.class, () -> frozen.setLocation(1, 1));
+        assertThrows(IllegalStateException.class, () -> frozen.setSize(1, 1));
+        assertThrows(IllegalStateException.class, () -> frozen.setDock(Dock.LeftTop));
+        
+        DockStyle copy = frozen.clone();
+        assertFalse(copy.isFrozen());
+        assertEquals(frozen, copy);
+        copy.setLocation(1, 1);
+        assertNotEquals(frozen, copy);
+    }
+    
+    @Test
+    void savableRoundTrip() throws IOException {
+        DockStyle custom = style(Dock.RightBottom, true);
+        custom.setAnchor(Anchor.of(0.25F, 0.75F, 0.1F, 0.9F));
+        
+        for (final DockStyle style : new DockStyle[] { style(Dock.CenterTop, false), custom }) {
+            DockStyle copy = roundTrip(style);
+            assertEquals(style, copy);
+            assertEquals(style.hasCustomAnchor(), copy.hasCustomAnchor());
+            assertFalse(copy.isFrozen());
+        }
+    }
+    
+    private static DockStyle style(Dock dock, boolean lock) {
+        DockStyle style = new DockStyle(dock, lock);
+        style.setLocation(10, -20);
+        style.setDepth(2);
+        style.setSize(64, 32);
+        return style;
+    }
+    
+    @SuppressWarnings("unchecked")
+    static <T extends Savable> T roundTrip(T savable) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryExporter.getInstance().save(savable, out);
+        return (T) BinaryImporter.getInstance().load(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
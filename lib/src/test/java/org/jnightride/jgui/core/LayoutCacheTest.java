@@ -0,0 +1,66 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de las claves y el reemplazo de {@link LayoutCache}.
+ * 
+ * @author wil
+ */
+class LayoutCacheTest {
+    
+    @Test
+    void hitsOnlyWithTheSameKey() {
+        final LayoutCache cache = new LayoutCache();
+        final DockStyle style = new DockStyle(Dock.Center);
+        final LayoutResult result = new LayoutResult(),
+                           store  = new LayoutResult();
+        result.set(1, 2, 3, 4, 5, 6);
+        cache.put(7L, style, 10, 20, 0, 800, 450, false, true, result);
+        
+        assertTrue(cache.get(7L, style, 10, 20, 0, 800, 450, false, true, store));
+        assertEquals(4.0F, store.getWidth());
+        
+        // Otro intervalo, otras dimensiones sincronizadas u otro padre.
+        assertFalse(cache.get(8L, style, 10, 20, 0, 800, 450, false, true, store));
+        assertFalse(cache.get(7L, style, 12, 20, 0, 800, 450, false, true, store));
+        assertFalse(cache.get(7L, style, 10, 20, 0, 640, 450, false, true, store));
+        assertFalse(cache.get(7L, style, 10, 20, 0, 800, 450, true, true, store));
+        
+        // Una modificacion del estilo invalida la entrada.
+        style.setLocation(1, 1);
+        assertFalse(cache.get(7L, style, 10, 20, 0, 800, 450, false, true, store));
+    }
+    
+    @Test
+    void replacesOldestEntry() {
+        final LayoutCache cache = new LayoutCache();
+        final DockStyle style = new DockStyle(Dock.Center);
+        final LayoutResult result = new LayoutResult();
+        for (int i = 0; i <= LayoutCache.CAPACITY; i++) {
+            cache.put(i, style, 10, 20, 0, 800, 450, false, true, result);
+        }
+        
+        assertFalse(cache.get(0L, style, 10, 20, 0, 800, 450, false, true, result));
+        assertTrue(cache.get(LayoutCache.CAPACITY, style, 10, 20, 0, 800, 450, false, true, result));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+
+import com.simsilica.lemur.Container;
+import com.simsilica.lemur.Panel;
+import com.simsilica.lemur.SpringGridLayout;
+import com.simsilica.lemur.style.ElementId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jnightride.jgui.RootPane;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la escritura y lectura de {@link LayoutDescriptor} y de la
+ * creacion del arbol a partir de un descriptor.
+ * 
+ * @author wil
+ */
+class LayoutDescriptorTest {
+    
+    /** Tolerancia de las comparaciones. */
+    private static final float EPSILON = 1e-4F;
+    
+    @Test
+    void writeReadRoundTrip() throws IOException {
+        RootPane root = GuiFixtures.newRoot(800, 450);
+        buildTree(root);
+        GuiFixtures.layout(root);
+        
+        LayoutDescriptor descriptor = LayoutDescriptor.of(GuiFixtures.layoutOf(root)),
+                         copy = DockStyleTest.roundTrip(descriptor);
+        
+        assertEquals(5, descriptor.size());
+        assertEquals(descriptor.size(), copy.size());
+        
+        final Vector3f tmp = new Vector3f();
+        for (int i = 0; i < descriptor.size(); i++) {
+            assertEquals(descriptor.typeAt(i), copy.typeAt(i));
+            assertEquals(descriptor.elementIdAt(i), copy.elementIdAt(i));
+            assertNull(copy.textAt(i));
+            assertEquals(descriptor.childCountAt(i), copy.childCountAt(i));
+            assertEquals(descriptor.styleAt(i, tmp), copy.styleAt(i, tmp));
+        }
+        
+        // Preorden: panel, contenedor y sus dos hijos, boton.
+        assertEquals(2, copy.childCountAt(1));
+        assertEquals("button", copy.elementIdAt(4));
+        assertEquals(64.0F, copy.styleAt(0, tmp).getWidth());
+        assertEquals(Dock.LeftTop, copy.styleAt(0, tmp).getDock());
+    }
+    
+    @Test
+    void instantiateRebuildsTheLayout() throws IOException {
+        RootPane source = GuiFixtures.newRoot(800, 450);
+        buildTree(source);
+        GuiFixtures.layout(source);
+        
+        final String containerType = GuiFixtures.newContainer(source, 1, 1).getClass().getName();
+        final RootPane target = GuiFixtures.newRoot(800, 450);
+        DockStyleTest.roundTrip(LayoutDescriptor.of(GuiFixtures.layoutOf(source)))
+                .instantiate(target, target, new LayoutDescriptor.ComponentFactory() {
+                    @Override
+                    public Panel create(String type, String name) {
+                        return create(type, name, null, null, null);
+                    }
+
+                    @Override
+                    public Panel create(String type, String name, String text, String elementId, String style) {
+                        if (type.equals(containerType)) {
+                            return GuiFixtures.newContainer(target, 0, 0);
+                        }
+                        return new Panel(false, new ElementId(elementId == null ? "panel" : elementId), style) { };
+                    }
+                });
+        GuiFixtures.layout(target);
+        
+        List<DockControl> expected = preorder(GuiFixtures.layoutOf(source), new ArrayList<>()),
+                          actual   = preorder(GuiFixtures.layoutOf(target), new ArrayList<>());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final LayoutResult e = expected.get(i).getLayoutResult(),
+                               a = actual.get(i).getLayoutResult();
+            assertEquals(e.getX(), a.getX(), EPSILON, "x " + i);
+            assertEquals(e.getY(), a.getY(), EPSILON, "y " + i);
+            assertEquals(e.getWidth(), a.getWidth(), EPSILON, "width " + i);
+            assertEquals(e.getHeight(), a.getHeight(), EPSILON, "height " + i);
+        }
+        
+        Panel button = (Panel) actual.get(4).getManagedNode();
+        assertEquals("button", button.getElementId().getId());
+        assertEquals("glass", button.getStyle());
+    }
+    
+    @Test
+    void reflectiveFactoryKeepsContainerStyle() throws IOException {
+        RootPane source = GuiFixtures.newRoot(800, 450);
+        StyledContainer window = source.addChild(new StyledContainer(new ElementId("window"), "glass"), Dock.RightTop);
+        window.setLayout(new DynamicLayout<>(source));
+        window.setPreferredSize(new Vector3f(200, 100, 0));
+        GuiFixtures.layout(source);
+        
+        final RootPane target = GuiFixtures.newRoot(800, 450);
+        DockStyleTest.roundTrip(LayoutDescriptor.of(GuiFixtures.layoutOf(source)))
+                .instantiate(target, target, LayoutDescriptor.REFLECTIVE);
+        GuiFixtures.layout(target);
+        
+        final DockControl dc = GuiFixtures.layoutOf(target).controls().iterator().next();
+        final StyledContainer copy = (StyledContainer) dc.getManagedNode();
+        assertEquals("window", copy.getElementId().getId());
+        assertEquals("glass", copy.getStyle());
+        assertTrue(copy.getLayout() instanceof DynamicLayout);
+        assertEquals(GuiFixtures.controlOf(window).getLayoutResult().getX(), dc.getLayoutResult().getX(), EPSILON);
+        assertEquals(GuiFixtures.controlOf(window).getLayoutResult().getWidth(), dc.getLayoutResult().getWidth(), EPSILON);
+    }
+    
+    /*
+        Contenedor sin estilos de Lemur, con los constructores que utiliza
+        la fabrica por reflexion.
+    */
+    static final class StyledContainer extends Container {
+        public StyledContainer() {
+            this(new ElementId(ELEMENT_ID), null);
+        }
+        public StyledContainer(ElementId elementId, String style) {
+            super(new SpringGridLayout(), false, elementId, style);
+        }
+    }
+    
+    /*
+        Panel, contenedor con dos hijos (uno con anclaje propio) y un
+        componente con estilo de Lemur.
+    */
+    private static void buildTree(RootPane root) {
+        Panel panel = root.addChild(GuiFixtures.newPanel(64, 32), Dock.LeftTop, true);
+        GuiFixtures.controlOf(panel).setPosition(8, -8);
+        
+        Container container = root.addChild(GuiFixtures.newContainer(root, 300, 200), Dock.Center);
+        container.addChild(GuiFixtures.newPanel(20, 10), Dock.RightBottom);
+        container.addChild(GuiFixtures.newPanel(10, 20), Anchor.of(0.25F, 0.75F));
+        
+        Panel button = new Panel(false, new ElementId("button"), "glass") { };
+        button.setPreferredSize(new Vector3f(50, 20, 0));
+        root.addChild(button, Dock.CenterBottom);
+    }
+    
+    private static List<DockControl> preorder(DynamicLayout<?> layout, List<DockControl> store) {
+        for (final DockControl dc : layout.controls()) {
+            store.add(dc);
+            
+            final Node node = dc.getManagedNode();
+            final DynamicLayout<?> sub = DynamicLayout.layoutOf(node);
+            if (sub != null) {
+                preorder(sub, store);
+            }
+        }
+        return store;
+    }
+}
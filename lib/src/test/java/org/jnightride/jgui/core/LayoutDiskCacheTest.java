@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.jnightride.jgui.AppSize;
+import org.jnightride.jgui.RootPane;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la validacion de {@link LayoutDiskCache}: una cache dañada,
+ * incompleta o de otra resolucion se rechaza.
+ * 
+ * @author wil
+ */
+class LayoutDiskCacheTest {
+    
+    /** Tamaño de la cabecera del archivo (ver LayoutDiskCache). */
+    private static final int HEADER_BYTES = 44;
+    
+    @TempDir
+    Path dir;
+    
+    private RootPane root;
+    private DynamicLayout<?> layout;
+    private AppSize appSize;
+    private Path file;
+    private LayoutDiskCache cache;
+    
+    @BeforeEach
+    void setUp() {
+        root = GuiFixtures.newRoot(800, 450);
+        root.addChild(GuiFixtures.newPanel(64, 32), Dock.LeftTop);
+        root.addChild(GuiFixtures.newPanel(32, 64), Dock.RightBottom);
+        GuiFixtures.layout(root);
+        
+        layout  = GuiFixtures.layoutOf(root);
+        appSize = root.getAppSize();
+        file    = dir.resolve("layout.cache");
+        cache   = new LayoutDiskCache(file);
+    }
+    
+    @Test
+    void validCacheLoads() {
+        assertFalse(cache.load(layout, appSize));
+        assertTrue(cache.save(layout, appSize));
+        assertTrue(cache.load(layout, appSize));
+    }
+    
+    @Test
+    void corruptedEntriesAreRejected() throws IOException {
+        assertTrue(cache.save(layout, appSize));
+        
+        final byte[] bytes = Files.readAllBytes(file);
+        bytes[HEADER_BYTES + 2] ^= 0x5A;
+        Files.write(file, bytes);
+        
+        assertFalse(cache.load(layout, appSize));
+    }
+    
+    @Test
+    void truncatedCacheIsRejected() throws IOException {
+        assertTrue(cache.save(layout, appSize));
+        
+        final byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        
+        assertFalse(cache.load(layout, appSize));
+    }
+    
+    @Test
+    void otherResolutionIsRejected() {
+        assertTrue(cache.save(layout, appSize));
+        assertFalse(cache.load(layout, new AppSize(appSize.getWidth() * 2, appSize.getHeight())));
+        
+        assertTrue(cache.delete());
+        assertFalse(cache.load(layout, appSize));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.simsilica.lemur.Container;
+import com.simsilica.lemur.Panel;
+
+import org.jnightride.jgui.AppSize;
+import org.jnightride.jgui.RootPane;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que {@link LayoutSolver} resuelve los mismos rectangulos que
+ * el layout en vivo ({@link DockControl}) para cada {@link Dock}.
+ * 
+ * @author wil
+ */
+class LayoutSolverTest {
+    
+    /** Tolerancia de las comparaciones. */
+    private static final float EPSILON = 1e-4F;
+    
+    /*
+        Contenedor raiz mas pequeño que la resolucion minima, de modo que
+        los factores de escala no son 1.
+    */
+    private static final float ROOT_WIDTH  = 800.0F,
+                               ROOT_HEIGHT = 450.0F;
+    
+    @Test
+    void topLevelMatchesDockControl() {
+        for (final Dock dock : Dock.values()) {
+            for (final boolean lock : new boolean[] { false, true }) {
+                RootPane root = GuiFixtures.newRoot(ROOT_WIDTH, ROOT_HEIGHT);
+                Panel panel = root.addChild(GuiFixtures.newPanel(40, 20), dock, lock);
+                GuiFixtures.controlOf(panel).setPosition(6, -3);
+                GuiFixtures.layout(root);
+                
+                LayoutSolver solver = new LayoutSolver(ROOT_WIDTH, ROOT_HEIGHT);
+                solver.add(-1, style(dock, lock, 40, 20, 6, -3));
+                LayoutResult[] rects = solver.solve(new AppSize(AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT));
+                
+                assertResult(dock + ", lock=" + lock, GuiFixtures.controlOf(panel).getLayoutResult(), rects[0]);
+            }
+        }
+    }
+    
+    @Test
+    void nestedMatchesDockControl() {
+        for (final Dock dock : Dock.values()) {
+            RootPane root = GuiFixtures.newRoot(ROOT_WIDTH, ROOT_HEIGHT);
+            Container container = root.addChild(GuiFixtures.newContainer(root, 300, 200), Dock.LeftTop);
+            GuiFixtures.controlOf(container).setPosition(12, -8);
+            Panel panel = container.addChild(GuiFixtures.newPanel(30, 10), dock);
+            GuiFixtures.controlOf(panel).setPosition(-4, 5);
+            GuiFixtures.layout(root);
+            
+            LayoutSolver solver = new LayoutSolver(ROOT_WIDTH, ROOT_HEIGHT);
+            int parent = solver.add(-1, style(Dock.LeftTop, false, 300, 200, 12, -8));
+            solver.add(parent, style(dock, false, 30, 10, -4, 5));
+            LayoutResult[] rects = solver.solve(new AppSize(AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT));
+            
+            assertResult("container", GuiFixtures.controlOf(container).getLayoutResult(), rects[0]);
+            assertResult(dock.toString(), GuiFixtures.controlOf(panel).getLayoutResult(), rects[1]);
+        }
+    }
+    
+    private static DockStyle style(Dock dock, boolean lock, float width, float height, float x, float y) {
+        DockStyle style = new DockStyle(dock, lock);
+        style.setSize(width, height);
+        style.setLocation(x, y);
+        return style;
+    }
+    
+    private static void assertResult(String message, LayoutResult expected, LayoutResult actual) {
+        assertEquals(expected.getX(), actual.getX(), EPSILON, message + " x");
+        assertEquals(expected.getY(), actual.getY(), EPSILON, message + " y");
+        assertEquals(expected.getZ(), actual.getZ(), EPSILON, message + " z");
+        assertEquals(expected.getWidth(), actual.getWidth(), EPSILON, message + " width");
+        assertEquals(expected.getHeight(), actual.getHeight(), EPSILON, message + " height");
+        assertEquals(expected.getDepth(), actual.getDepth(), EPSILON, message + " depth");
+    }
+}
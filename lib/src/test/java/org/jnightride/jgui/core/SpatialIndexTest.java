@@ -0,0 +1,139 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.math.Vector4f;
+import com.jme3.scene.Spatial;
+
+import com.simsilica.lemur.Container;
+import com.simsilica.lemur.Panel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jnightride.jgui.AppSize;
+import org.jnightride.jgui.RootPane;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de las consultas de {@link SpatialIndex}.
+ * 
+ * @author wil
+ */
+class SpatialIndexTest {
+    
+    /*
+        Contenedor raiz con la resolucion minima (escala 1), un componente
+        en cada esquina opuesta, uno en el centro y un contenedor con un
+        hijo.
+    */
+    private RootPane root;
+    private SpatialIndex index;
+    private Panel leftBottom, rightTop, center, nested;
+    private Container container;
+    
+    @BeforeEach
+    void setUp() {
+        root = GuiFixtures.newRoot(AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT);
+        leftBottom = root.addChild(GuiFixtures.newPanel(100, 100), Dock.LeftBottom);
+        rightTop   = root.addChild(GuiFixtures.newPanel(100, 100), Dock.RightTop);
+        center     = root.addChild(GuiFixtures.newPanel(50, 50), Dock.Center);
+        container  = root.addChild(GuiFixtures.newContainer(root, 120, 60), Dock.CenterTop);
+        nested     = container.addChild(GuiFixtures.newPanel(20, 20), Dock.Center);
+        GuiFixtures.layout(root);
+        
+        index = root.getSpatialIndex();
+    }
+    
+    @Test
+    void pickFindsComponentUnderPoint() {
+        assertEquals(5, index.size());
+        assertSame(control(leftBottom), pickCenter(leftBottom));
+        assertSame(control(rightTop), pickCenter(rightTop));
+        assertSame(control(center), index.pick(AppSize.MIN_WIDTH * 0.5F, AppSize.MIN_HEIGHT * 0.5F));
+        
+        // El hijo esta por delante de su contenedor.
+        assertSame(control(nested), pickCenter(nested));
+        assertNull(index.pick(300, 300));
+    }
+    
+    @Test
+    void pickAllAndOverlap() {
+        final Vector4f bounds = index.getBounds(control(nested), new Vector4f());
+        final List<DockControl> hits = index.pickAll((bounds.x + bounds.z) * 0.5F, 
+                                                     (bounds.y + bounds.w) * 0.5F, new ArrayList<>());
+        assertEquals(2, hits.size());
+        assertTrue(hits.contains(control(container)));
+        assertTrue(hits.contains(control(nested)));
+        
+        assertEquals(5, index.overlap(0, 0, AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT, new ArrayList<>()).size());
+        
+        final Vector4f lb = index.getBounds(control(leftBottom), new Vector4f());
+        final List<DockControl> corner = index.overlap(lb.x, lb.y, lb.z, lb.w, new ArrayList<>());
+        assertEquals(1, corner.size());
+        assertSame(control(leftBottom), corner.get(0));
+    }
+    
+    @Test
+    void nearestFindsClosestRectangle() {
+        final Vector4f lb = index.getBounds(control(leftBottom), new Vector4f());
+        assertSame(control(leftBottom), index.nearest(lb.z + 40, (lb.y + lb.w) * 0.5F));
+        
+        final Vector4f rt = index.getBounds(control(rightTop), new Vector4f());
+        assertSame(control(rightTop), index.nearest(rt.x - 40, (rt.y + rt.w) * 0.5F));
+    }
+    
+    @Test
+    void hiddenComponentsAreSkipped() {
+        final Vector4f lb = index.getBounds(control(leftBottom), new Vector4f());
+        leftBottom.setCullHint(Spatial.CullHint.Always);
+        assertNull(index.pick((lb.x + lb.z) * 0.5F, (lb.y + lb.w) * 0.5F));
+        
+        // Un padre oculto tambien oculta a sus hijos.
+        final Vector4f nb = index.getBounds(control(nested), new Vector4f());
+        container.setCullHint(Spatial.CullHint.Always);
+        assertNull(index.pick((nb.x + nb.z) * 0.5F, (nb.y + nb.w) * 0.5F));
+        assertFalse(index.overlap(0, 0, AppSize.MIN_WIDTH, AppSize.MIN_HEIGHT, new ArrayList<>())
+                         .contains(control(nested)));
+    }
+    
+    @Test
+    void removedComponentsLeaveTheIndex() {
+        root.removeChild(center);
+        assertEquals(4, index.size());
+        assertNull(index.getBounds(control(center), new Vector4f()));
+        assertNull(index.pick(AppSize.MIN_WIDTH * 0.5F, AppSize.MIN_HEIGHT * 0.5F));
+    }
+    
+    private DockControl pickCenter(Panel panel) {
+        final Vector4f bounds = index.getBounds(control(panel), new Vector4f());
+        assertNotNull(bounds);
+        return index.pick((bounds.x + bounds.z) * 0.5F, (bounds.y + bounds.w) * 0.5F);
+    }
+    
+    private static DockControl control(Panel panel) {
+        return GuiFixtures.controlOf(panel);
+    }
+}
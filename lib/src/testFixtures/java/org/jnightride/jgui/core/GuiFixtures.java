@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023 wil.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jnightride.jgui.core;
+
+import com.jme3.math.Vector3f;
+
+import com.simsilica.lemur.Container;
+import com.simsilica.lemur.Panel;
+import com.simsilica.lemur.SpringGridLayout;
+import com.simsilica.lemur.style.ElementId;
+
+import org.jnightride.jgui.RootPane;
+
+/**
+ * Genera componentes Lemur sin estilos para las pruebas unitarias y de
+ * rendimiento; ninguno aplica estilos, por lo que no es necesario
+ * inicializar {@code GuiGlobals} ni tener una pantalla.
+ * 
+ * @author wil
+ */
+public final class GuiFixtures {
+    
+    private GuiFixtures() {}
+    
+    /**
+     * Genera un nuevo contenedor raiz sin aplicacion.
+     * @param width largo del contenedor.
+     * @param height ancho del contenedor.
+     * @return Un nuevo RootPane.
+     */
+    public static RootPane newRoot(float width, float height) {
+        RootPane root = new RootPane(null, false);
+        root.setPreferredSize(new Vector3f(width, height, 0.0F));
+        return root;
+    }
+    
+    /**
+     * Genera un nuevo panel sin estilos.
+     * @param width largo preferido.
+     * @param height ancho preferido.
+     * @return Un nuevo Panel.
+     */
+    public static Panel newPanel(float width, float height) {
+        Panel panel = new Panel(false, new ElementId("panel"), null) { };
+        panel.setPreferredSize(new Vector3f(width, height, 0.0F));
+        return panel;
+    }
+    
+    /**
+     * Genera un nuevo contenedor sin estilos con un {@code DynamicLayout}.
+     * @param root contenedor raiz.
+     * @param width largo preferido.
+     * @param height ancho preferido.
+     * @return Un nuevo Container.
+     */
+    public static Container newContainer(RootPane root, float width, float height) {
+        Container container = new Container(new SpringGridLayout(), false, new ElementId(Container.ELEMENT_ID), null) { };
+        container.setLayout(new DynamicLayout<>(root));
+        container.setPreferredSize(new Vector3f(width, height, 0.0F));
+        return container;
+    }
+    
+    /**
+     * Devuelve el layout de un contenedor.
+     * @param container contenedor con un {@code DynamicLayout}.
+     * @return Un DynamicLayout como valor.
+     */
+    public static DynamicLayout<?> layoutOf(Container container) {
+        return (DynamicLayout<?>) container.getLayout();
+    }
+    
+    /**
+     * Ejecuta una pasada de diseño del contenedor raiz con sus dimensiones
+     * actuales (sincronizando las preferidas de los hijos) y actualiza las
+     * traslaciones en el grafo de escena.
+     * 
+     * @param root contenedor raiz.
+     */
+    public static void layout(RootPane root) {
+        layoutOf(root).reshape(new Vector3f(), root.getPreferredSize());
+        root.updateGeometricState();
+    }
+    
+    /**
+     * Devuelve el control de diseño de un componente.
+     * @param panel componente agregado a un {@code DynamicLayout}.
+     * @return Un DockControl como valor.
+     */
+    public static DockControl controlOf(Panel panel) {
+        return panel.getControl(DockControl.class);
+    }
+}